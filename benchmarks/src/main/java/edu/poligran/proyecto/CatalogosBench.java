@@ -0,0 +1,27 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Carga de productos.csv y vendedores.csv (Main.cargarProductos / Main.cargarVendedores). */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CatalogosBench {
+
+    @Benchmark
+    public Catalogo<Producto> cargarProductos(DatosBench datos) throws IOException {
+        return Main.cargarProductos(datos.productos());
+    }
+
+    @Benchmark
+    public Catalogo<Vendedor> cargarVendedores(DatosBench datos) throws IOException {
+        return Main.cargarVendedores(datos.vendedores());
+    }
+}
@@ -0,0 +1,74 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Juego de datos compartido por los benchmarks, generado con {@link GenerateInfoFiles}.
+ *
+ * La escala es el número (aproximado) de líneas de venta: 200 ventas por vendedor en promedio y
+ * un producto por cada 100 ventas (entre 20 y 100 000), con popularidad tipo Zipf (--sesgo=1).
+ * Cada escala se genera una sola vez en target/datos-bench/&lt;lineas&gt; (o en la carpeta de la
+ * propiedad -Dbench.datos=...) y se reutiliza en las corridas siguientes.
+ */
+@State(Scope.Benchmark)
+public class DatosBench {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int lineas;
+
+    Path dir;
+    Catalogo<Producto> productos;
+    Catalogo<Vendedor> vendedores;
+    List<Path> archivosVenta;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException, InterruptedException {
+        dir = Paths.get(System.getProperty("bench.datos", "target/datos-bench"), String.valueOf(lineas));
+        if (!Files.exists(dir.resolve(".listo"))) generar();
+
+        productos = Main.cargarProductos(productos());
+        vendedores = Main.cargarVendedores(vendedores());
+        archivosVenta = Main.listarArchivosVenta(ventas());
+    }
+
+    Path productos() {
+        return dir.resolve("data").resolve("productos.csv");
+    }
+
+    Path vendedores() {
+        return dir.resolve("data").resolve("vendedores.csv");
+    }
+
+    Path ventas() {
+        return dir.resolve("data").resolve("ventas");
+    }
+
+    /** GenerateInfoFiles escribe en ./data, así que se lanza en otro proceso con 'dir' como carpeta actual. */
+    private void generar() throws IOException, InterruptedException {
+        Files.createDirectories(dir);
+        int nVendedores = Math.max(1, lineas / 200);
+        int nProductos = Math.min(100_000, Math.max(20, lineas / 100));
+        List<String> cmd = Arrays.asList(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                GenerateInfoFiles.class.getName(),
+                "--productos=" + nProductos,
+                "--vendedores=" + nVendedores,
+                "--ventas-min=150", "--ventas-max=250",
+                "--sesgo=1");
+        File carpeta = dir.toFile();
+        int salida = new ProcessBuilder(cmd).directory(carpeta).inheritIO().start().waitFor();
+        if (salida != 0 || !Files.isDirectory(ventas()) || !Files.exists(productos())) {
+            throw new IOException("No se pudo generar el juego de datos de " + lineas + " líneas en " + dir);
+        }
+        Files.createFile(dir.resolve(".listo"));
+    }
+}
@@ -0,0 +1,33 @@
+package edu.poligran.proyecto;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada de target/benchmarks.jar: acepta las mismas opciones que JMH
+ * (filtro por nombre, -p lineas=..., -f, -wi, -i, -rf json ...) y, si no se pide ningún
+ * profiler con -prof, agrega el de GC para informar la tasa de asignación (gc.alloc.rate.norm).
+ */
+public class EjecutarBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp()) {
+            cli.showHelp();
+            return;
+        }
+
+        ChainedOptionsBuilder op = new OptionsBuilder().parent(cli);
+        if (cli.getProfilers().isEmpty()) op.addProfiler(GCProfiler.class);
+
+        Runner runner = new Runner(op.build());
+        if (cli.shouldList()) {
+            runner.list();
+            return;
+        }
+        runner.run();
+    }
+}
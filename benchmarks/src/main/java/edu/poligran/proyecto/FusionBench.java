@@ -0,0 +1,60 @@
+package edu.poligran.proyecto;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fusión de acumulados, sin E/S:
+ *  - fusionar: une los Resultados por hilo del modo paralelo (Resultados.fusionar);
+ *  - sumarParciales: reconstruye los totales desde los parciales por archivo del modo
+ *    incremental y de --vigilar (Resultados.sumar).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FusionBench {
+
+    private static final int HILOS = 8;
+
+    @State(Scope.Benchmark)
+    public static class Parciales {
+        List<Resultados> porHilo;
+        List<ParcialVentas> porArchivo;
+
+        @Setup(Level.Trial)
+        public void preparar(DatosBench datos) throws IOException {
+            porHilo = new ArrayList<>(HILOS);
+            for (int h = 0; h < HILOS; h++) porHilo.add(new Resultados(datos.productos, datos.vendedores));
+
+            porArchivo = new ArrayList<>(datos.archivosVenta.size());
+            Resultados trabajo = new Resultados(datos.productos, datos.vendedores, true);
+            for (int i = 0; i < datos.archivosVenta.size(); i++) {
+                Main.procesarArchivoVenta(datos.archivosVenta.get(i), datos.productos, datos.vendedores,
+                        porHilo.get(i % HILOS));
+                trabajo.reiniciar();
+                Main.procesarArchivoVenta(datos.archivosVenta.get(i), datos.productos, datos.vendedores, trabajo);
+                porArchivo.add(trabajo.aParcial());
+            }
+        }
+    }
+
+    @Benchmark
+    public Resultados fusionar(DatosBench datos, Parciales parciales) {
+        Resultados res = new Resultados(datos.productos, datos.vendedores);
+        for (Resultados r : parciales.porHilo) res.fusionar(r);
+        return res;
+    }
+
+    @Benchmark
+    public Resultados sumarParciales(DatosBench datos, Parciales parciales) {
+        Resultados res = new Resultados(datos.productos, datos.vendedores);
+        for (ParcialVentas p : parciales.porArchivo) res.sumar(p);
+        return res;
+    }
+}
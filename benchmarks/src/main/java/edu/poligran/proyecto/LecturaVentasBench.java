@@ -0,0 +1,48 @@
+package edu.poligran.proyecto;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lectura y acumulación de TODOS los archivos de ventas de la escala, en un solo hilo.
+ * Una operación = el juego de datos completo; "flujo" es Main.procesarArchivoVenta y
+ * "mapeado" es {@link LectorVentasMapeado}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LecturaVentasBench {
+
+    @Benchmark
+    public Resultados flujo(DatosBench datos) throws IOException {
+        Resultados res = new Resultados(datos.productos, datos.vendedores);
+        for (Path archivo : datos.archivosVenta) {
+            Main.procesarArchivoVenta(archivo, datos.productos, datos.vendedores, res);
+        }
+        return res;
+    }
+
+    @Benchmark
+    public Resultados mapeado(DatosBench datos, Lectores lectores) throws IOException {
+        Resultados res = new Resultados(datos.productos, datos.vendedores);
+        for (Path archivo : datos.archivosVenta) {
+            lectores.mapeado.procesar(archivo, res);
+        }
+        return res;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Lectores {
+        Main.LectorVentas mapeado;
+
+        @Setup(Level.Trial)
+        public void preparar(DatosBench datos) {
+            mapeado = Main.crearLector("mapeado", datos.productos, datos.vendedores);
+        }
+    }
+}
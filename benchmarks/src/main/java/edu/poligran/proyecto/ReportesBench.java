@@ -0,0 +1,96 @@
+package edu.poligran.proyecto;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escritura de cada reporte completo (sin --top) a partir de acumulados ya calculados, en CSV y en
+ * formato columnar (--binario), y lectura de las 100 primeras filas de cada formato.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReportesBench {
+
+    @State(Scope.Benchmark)
+    public static class Acumulados {
+        Resultados res;
+        Path salida;
+        Path csv;
+        Path binario;
+
+        @Setup(Level.Trial)
+        public void preparar(DatosBench datos) throws IOException {
+            res = new Resultados(datos.productos, datos.vendedores);
+            for (Path archivo : datos.archivosVenta) {
+                Main.procesarArchivoVenta(archivo, datos.productos, datos.vendedores, res);
+            }
+            salida = Files.createTempFile("reporte-bench", ".csv");
+            csv = Files.createTempFile("reporte-bench-lectura", ".csv");
+            binario = Files.createTempFile("reporte-bench-lectura", ".bin");
+            Main.escribirReporteVendedores(csv, res, 0);
+            Main.RankingVendedores ranking = new Main.RankingVendedores(res);
+            Main.escribirReporteVendedoresColumnar(binario, ranking, ranking.ordenar(0));
+        }
+
+        @TearDown(Level.Trial)
+        public void limpiar() throws IOException {
+            Files.deleteIfExists(salida);
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(binario);
+        }
+    }
+
+    @Benchmark
+    public void reporteVendedores(Acumulados a) throws IOException {
+        Main.escribirReporteVendedores(a.salida, a.res, 0);
+    }
+
+    @Benchmark
+    public void reporteProductos(Acumulados a) throws IOException {
+        Main.escribirReporteProductos(a.salida, a.res, 0);
+    }
+
+    @Benchmark
+    public void reporteVendedoresColumnar(Acumulados a) throws IOException {
+        Main.RankingVendedores ranking = new Main.RankingVendedores(a.res);
+        Main.escribirReporteVendedoresColumnar(a.salida, ranking, ranking.ordenar(0));
+    }
+
+    @Benchmark
+    public void reporteProductosColumnar(Acumulados a) throws IOException {
+        Main.escribirReporteProductosColumnar(a.salida, a.res, Main.rankingProductos(a.res, 0));
+    }
+
+    /** Primeras 100 filas del CSV de vendedores: hay que separar y convertir cada línea. */
+    @Benchmark
+    public long top100Csv(Acumulados a) throws IOException {
+        long suma = 0;
+        try (BufferedReader br = Files.newBufferedReader(a.csv, StandardCharsets.UTF_8)) {
+            String linea;
+            for (int i = 0; i < 100 && (linea = br.readLine()) != null; i++) {
+                String total = linea.substring(linea.lastIndexOf(';') + 1);
+                suma += new BigDecimal(total).movePointRight(2).longValueExact() + linea.length();
+            }
+        }
+        return suma;
+    }
+
+    /** Las mismas filas desde el reporte columnar mapeado. */
+    @Benchmark
+    public long top100Columnar(Acumulados a) throws IOException {
+        ReporteColumnar r = ReporteColumnar.abrir(a.binario);
+        long suma = 0;
+        for (int i = 0; i < Math.min(100, r.filas()); i++) suma += r.centavos(i) + r.nombre(i).length();
+        return suma;
+    }
+}
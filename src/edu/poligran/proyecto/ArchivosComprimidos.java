@@ -0,0 +1,294 @@
+package edu.poligran.proyecto;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archivos de ventas y reportes comprimidos con gzip, de forma transparente.
+ *
+ * Entrada: un archivo es gzip si su nombre termina en ".gz" o si empieza con los bytes mágicos
+ * 1F 8B (así un "CC_1.csv" comprimido por error también se lee bien). La descompresión corre en un
+ * hilo aparte que deja bloques de 64 KiB en una cola acotada; el hilo que interpreta las líneas los
+ * consume mientras el siguiente bloque ya se está inflando. Con la cola llena el descompresor espera,
+ * así que la memoria extra por archivo es de unos pocos bloques sin importar su tamaño.
+ *
+ * Salida: {@link #nuevaSalida} envuelve el flujo en GZIPOutputStream cuando se pide.
+ */
+final class ArchivosComprimidos {
+
+    static final String EXTENSION = ".gz";
+
+    private static final int MAGICO_1 = 0x1F;
+    private static final int MAGICO_2 = 0x8B;
+    private static final int TAM_BLOQUE = 1 << 16;
+    private static final int BLOQUES = 4;
+
+    /** Descompresores: hilos daemon reutilizados entre archivos (muchos .gz chicos no crean un hilo cada uno). */
+    private static final ExecutorService DESCOMPRESORES;
+
+    static {
+        AtomicInteger n = new AtomicInteger();
+        DESCOMPRESORES = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "gunzip-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private ArchivosComprimidos() { }
+
+    static boolean tieneExtension(Path archivo) {
+        return archivo.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    /** ¿gzip? Por extensión o por los bytes mágicos (lectura posicional: no mueve el canal). */
+    static boolean esGzip(Path archivo, FileChannel ch) throws IOException {
+        if (tieneExtension(archivo)) return true;
+        if (ch.size() < 2) return false;
+        ByteBuffer cab = ByteBuffer.allocate(2);
+        while (cab.hasRemaining() && ch.read(cab, cab.position()) >= 0) {
+            // read posicional puede traer menos de lo pedido
+        }
+        return (cab.get(0) & 0xFF) == MAGICO_1 && (cab.get(1) & 0xFF) == MAGICO_2;
+    }
+
+    /** ¿Los primeros 'n' bytes de 'cab' empiezan con los mágicos de gzip? */
+    static boolean esGzip(byte[] cab, int n) {
+        return n >= 2 && (cab[0] & 0xFF) == MAGICO_1 && (cab[1] & 0xFF) == MAGICO_2;
+    }
+
+    static boolean esGzip(Path archivo) throws IOException {
+        if (tieneExtension(archivo)) return true;
+        try (FileChannel ch = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            return esGzip(archivo, ch);
+        }
+    }
+
+    /**
+     * Lector de texto UTF-8 del archivo, descomprimido si hace falta. Decodifica con las mismas
+     * reglas estrictas que Files.newBufferedReader (UTF-8 mal formado es un error, no un '?').
+     */
+    static BufferedReader nuevoLector(Path archivo) throws IOException {
+        return new BufferedReader(new InputStreamReader(abrir(archivo), StandardCharsets.UTF_8.newDecoder()));
+    }
+
+    /**
+     * Como {@link #nuevoLector(Path)}; al cerrarlo suma a res.bytesArchivo los bytes leídos del disco
+     * (los comprimidos, si es gzip), para las métricas.
+     */
+    static BufferedReader nuevoLector(Path archivo, Resultados res) throws IOException {
+        EntradaContada disco = new EntradaContada(Files.newInputStream(archivo));
+        InputStream in = abrir(disco, archivo);
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder())) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    res.bytesArchivo += disco.bytes;
+                }
+            }
+        };
+    }
+
+    /** Bytes del archivo, ya descomprimidos si es gzip. Se abre UNA sola vez: los mágicos se miran y se devuelven. */
+    static InputStream abrir(Path archivo) throws IOException {
+        return abrir(Files.newInputStream(archivo), archivo);
+    }
+
+    private static InputStream abrir(InputStream crudo, Path archivo) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(crudo, 2);
+        try {
+            byte[] cab = new byte[2];
+            int n = 0;
+            int leidos;
+            while (n < 2 && (leidos = in.read(cab, n, 2 - n)) > 0) n += leidos;
+            in.unread(cab, 0, n);
+            // Un .gz de 0 bytes se trata como archivo vacío (mismo rechazo que un .csv vacío)
+            boolean gzip = esGzip(cab, n) || (n > 0 && tieneExtension(archivo));
+            return gzip ? new DescompresionEnParalelo(in, archivo) : in;
+        } catch (IOException | RuntimeException ex) {
+            in.close();
+            throw ex;
+        }
+    }
+
+    /** Flujo de salida, comprimido con gzip si 'comprimir'. Cerrarlo escribe el pie del gzip. */
+    static OutputStream nuevaSalida(OutputStream out, boolean comprimir) throws IOException {
+        return comprimir ? new GZIPOutputStream(out, TAM_BLOQUE) : out;
+    }
+
+    /** 'archivo' con ".gz" al final si 'comprimir' (y sin él si no). */
+    static Path variante(Path archivo, boolean comprimir) {
+        String nombre = archivo.getFileName().toString();
+        boolean tiene = nombre.endsWith(EXTENSION);
+        if (comprimir == tiene) return archivo;
+        return archivo.resolveSibling(comprimir ? nombre + EXTENSION
+                : nombre.substring(0, nombre.length() - EXTENSION.length()));
+    }
+
+    /**
+     * Cuenta los bytes que se leen del archivo. Los lee un solo hilo (el lector, o el descompresor
+     * con gzip); quien consulta 'bytes' lo hace después de ver el fin del flujo o de cerrarlo.
+     */
+    private static final class EntradaContada extends FilterInputStream {
+        volatile long bytes;
+
+        EntradaContada(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) bytes++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) bytes += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long s = super.skip(n);
+            bytes += s;
+            return s;
+        }
+    }
+
+    // =========================================================================================
+    // Descompresión en un hilo aparte
+    // =========================================================================================
+
+    private static final class Bloque {
+        final byte[] datos = new byte[TAM_BLOQUE];
+        int largo;         // -1 = fin del archivo
+        IOException error; // el descompresor falló (gzip truncado o dañado)
+    }
+
+    /**
+     * Productor (hilo del pool): infla a bloques 'libres' y los pasa a 'llenos'. Consumidor (quien
+     * lee): vacía 'llenos' y devuelve cada bloque a 'libres'. Sólo circulan BLOQUES bloques.
+     */
+    private static final class DescompresionEnParalelo extends InputStream {
+        private final InputStream origen;
+        private final Path archivo;
+        private final BlockingQueue<Bloque> libres = new ArrayBlockingQueue<>(BLOQUES);
+        private final BlockingQueue<Bloque> llenos = new ArrayBlockingQueue<>(BLOQUES);
+        private final Future<?> productor;
+        private Bloque actual;
+        private int pos;
+        private boolean fin;
+        private boolean cerrado;
+
+        DescompresionEnParalelo(InputStream origen, Path archivo) {
+            this.origen = origen;
+            this.archivo = archivo;
+            for (int i = 0; i < BLOQUES; i++) libres.add(new Bloque());
+            productor = DESCOMPRESORES.submit(this::inflar);
+        }
+
+        private void inflar() {
+            Bloque b = null;
+            try (InputStream gz = new GZIPInputStream(origen, TAM_BLOQUE)) {
+                while (true) {
+                    b = libres.take();
+                    int n = 0;
+                    int leidos;
+                    while (n < TAM_BLOQUE && (leidos = gz.read(b.datos, n, TAM_BLOQUE - n)) > 0) n += leidos;
+                    b.largo = n > 0 ? n : -1;
+                    llenos.put(b);
+                    if (n == 0) return;
+                    b = null;
+                }
+            } catch (InterruptedException ie) {
+                // close() del consumidor: nadie espera más bloques
+            } catch (IOException ex) {
+                try {
+                    if (b == null) b = libres.take();
+                    b.largo = -1;
+                    b.error = ex;
+                    llenos.put(b);
+                } catch (InterruptedException ie) {
+                    // cerrado mientras se avisaba del error
+                }
+            }
+        }
+
+        /** true si 'actual' tiene bytes por leer. */
+        private boolean siguiente() throws IOException {
+            if (actual != null && pos < actual.largo) return true;
+            if (fin) return false;
+            if (cerrado) throw new IOException("Flujo cerrado: " + archivo);
+            if (actual != null) {
+                libres.add(actual);
+                actual = null;
+            }
+            Bloque b;
+            try {
+                b = llenos.take();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Lectura interrumpida: " + archivo);
+            }
+            if (b.largo < 0) {
+                fin = true;
+                if (b.error != null) {
+                    String detalle = b.error.getMessage() != null ? b.error.getMessage() : "gzip incompleto";
+                    throw new IOException("No se pudo descomprimir " + archivo + ": " + detalle, b.error);
+                }
+                return false;
+            }
+            actual = b;
+            pos = 0;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return siguiente() ? actual.datos[pos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] destino, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!siguiente()) return -1;
+            int n = Math.min(len, actual.largo - pos);
+            System.arraycopy(actual.datos, pos, destino, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (cerrado) return;
+            cerrado = true;
+            productor.cancel(true); // despierta al descompresor si espera un bloque libre
+            origen.close();         // por si la tarea se canceló antes de empezar
+        }
+    }
+}
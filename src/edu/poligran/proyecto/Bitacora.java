@@ -0,0 +1,198 @@
+package edu.poligran.proyecto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bitácora asíncrona con niveles (INFO / WARN / ERROR) en data/log.txt.
+ *
+ * Quien registra sólo encola el mensaje (offer, nunca espera): un único hilo de fondo escribe el
+ * archivo y repite el mensaje en consola (INFO por stdout con "ℹ️", WARN/ERROR por stderr con
+ * "⚠️"/"❌"). Si la cola se llena, los mensajes se descartan y se cuenta cuántos, en vez de frenar
+ * el procesamiento; el total descartado queda anotado en el log.
+ *
+ * Las advertencias por línea de los archivos de ventas NO pasan por aquí una a una: los motores
+ * las cuentan en {@link Resultados} (con algunos ejemplos) y se registra un resumen por archivo.
+ *
+ * Sin {@link #iniciar} (p. ej. desde ComparacionLectores o los benchmarks) los mensajes sólo se
+ * muestran en consola, de forma síncrona como antes. Lo mismo si el hilo escritor falla (disco
+ * lleno, volumen desmontado): la bitácora queda "muerta", lo que estaba en la cola se muestra en
+ * consola y los mensajes siguientes van directo a consola en vez de a una cola que nadie vacía.
+ */
+final class Bitacora {
+
+    enum Nivel { INFO, WARN, ERROR }
+
+    private static final int CAPACIDAD = 8192;
+    private static final int ESPERA_CIERRE_S = 10;
+    private static final DateTimeFormatter FORMATO =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final class Registro {
+        final long millis;
+        final Nivel nivel;
+        final String mensaje;
+        boolean enConsola;  // sólo lo toca el hilo escritor
+
+        Registro(long millis, Nivel nivel, String mensaje) {
+            this.millis = millis;
+            this.nivel = nivel;
+            this.mensaje = mensaje;
+        }
+    }
+
+    private static final Registro FIN = new Registro(0, Nivel.INFO, "");
+    private static volatile Bitacora activa;
+
+    private final BlockingQueue<Registro> cola = new ArrayBlockingQueue<>(CAPACIDAD);
+    private final AtomicLong descartados = new AtomicLong();
+    private final BufferedWriter out;
+    private final Thread hilo;
+    private volatile boolean muerta;  // el hilo escritor terminó por un error
+
+    private Bitacora(Path archivo) throws IOException {
+        Path dir = archivo.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        out = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        hilo = new Thread(this::escribirPendientes, "bitacora");
+        hilo.setDaemon(true);
+    }
+
+    /** Empieza a registrar en 'archivo' (se agrega al final). */
+    static synchronized void iniciar(Path archivo) throws IOException {
+        if (activa != null) return;
+        Bitacora b = new Bitacora(archivo);
+        b.hilo.start();
+        activa = b;
+    }
+
+    /** Vacía la cola, cierra el archivo y vuelve al modo sólo consola. */
+    static synchronized void cerrar() {
+        Bitacora b = activa;
+        if (b == null) return;
+        activa = null;
+        try {
+            // Nunca put: con el escritor muerto y la cola llena, esperaría para siempre
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(ESPERA_CIERRE_S);
+            if (b.hilo.isAlive() && b.cola.offer(FIN, ESPERA_CIERRE_S, TimeUnit.SECONDS)) {
+                b.hilo.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime())));
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        if (b.muerta) b.vaciarEnConsola();
+    }
+
+    static void info(String mensaje) {
+        registrar(Nivel.INFO, mensaje);
+    }
+
+    static void warn(String mensaje) {
+        registrar(Nivel.WARN, mensaje);
+    }
+
+    static void error(String mensaje) {
+        registrar(Nivel.ERROR, mensaje);
+    }
+
+    static void registrar(Nivel nivel, String mensaje) {
+        Bitacora b = activa;
+        if (b == null || b.muerta) {
+            consola(nivel, mensaje);
+            return;
+        }
+        if (!b.cola.offer(new Registro(System.currentTimeMillis(), nivel, mensaje))) {
+            b.descartados.incrementAndGet();
+        }
+        if (b.muerta) b.vaciarEnConsola(); // el escritor murió justo después de la comprobación
+    }
+
+    /** Muestra en consola lo que quedó en la cola (escritor muerto). drainTo no entrega nada dos veces. */
+    private void vaciarEnConsola() {
+        List<Registro> pendientes = new ArrayList<>();
+        cola.drainTo(pendientes);
+        for (Registro r : pendientes) {
+            if (r != FIN) consola(r.nivel, r.mensaje);
+        }
+    }
+
+    private static void consola(Nivel nivel, String mensaje) {
+        PrintStream ps = nivel == Nivel.INFO ? System.out : System.err;
+        String prefijo = nivel == Nivel.INFO ? "ℹ️  " : nivel == Nivel.WARN ? "⚠️  " : "❌ ";
+        ps.println(prefijo + mensaje);
+    }
+
+    // =========================================================================================
+    // Hilo escritor
+    // =========================================================================================
+
+    private void escribirPendientes() {
+        List<Registro> lote = new ArrayList<>(256);
+        boolean fin = false;
+        try {
+            while (!fin) {
+                lote.add(cola.take());
+                cola.drainTo(lote, 255);
+                for (Registro r : lote) {
+                    if (r == FIN) {
+                        fin = true;
+                        continue;
+                    }
+                    escribir(r);
+                }
+                lote.clear();
+                long perdidos = descartados.getAndSet(0);
+                if (perdidos > 0) {
+                    escribir(new Registro(System.currentTimeMillis(), Nivel.WARN,
+                            "Bitácora saturada: se descartaron " + perdidos + " mensaje(s)."));
+                }
+                // Se vacía el búfer al quedar la cola sin pendientes (en --vigilar el log queda al día)
+                if (cola.isEmpty()) out.flush();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            muerta = true;
+            System.err.println("⚠️  No se pudo escribir la bitácora: " + ex.getMessage()
+                    + " (los mensajes siguen sólo en consola)");
+            for (Registro r : lote) {
+                if (r != FIN && !r.enConsola) consola(r.nivel, r.mensaje);
+            }
+            vaciarEnConsola();
+            long perdidos = descartados.getAndSet(0);
+            if (perdidos > 0) consola(Nivel.WARN, "Bitácora saturada: se descartaron " + perdidos + " mensaje(s).");
+        } finally {
+            try {
+                out.close();
+            } catch (IOException ignorada) {
+                // nada más que hacer: el proceso está terminando
+            }
+        }
+    }
+
+    private void escribir(Registro r) throws IOException {
+        consola(r.nivel, r.mensaje); // primero: si el archivo falla, el mensaje ya se vio
+        r.enConsola = true;
+        out.write(FORMATO.format(Instant.ofEpochMilli(r.millis)));
+        out.write(' ');
+        out.write(r.nivel == Nivel.INFO ? "INFO " : r.nivel == Nivel.WARN ? "WARN " : "ERROR");
+        out.write(' ');
+        out.write(r.mensaje);
+        out.newLine();
+    }
+}
@@ -0,0 +1,192 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Carga sostenida sobre data/ventas (GenerateInfoFiles --carga, y la usa {@link PruebaCarga}).
+ *
+ * Simula las cajas durante el día, a un ritmo fijo:
+ *  - agrega líneas IDProducto;Cantidad; al final de los archivos de ventas existentes (los .csv sin
+ *    comprimir), de a --lote líneas por escritura en un archivo elegido al azar;
+ *  - deja archivos nuevos con sólo la cabecera (TipoDoc;NumeroDoc de un vendedor del catálogo,
+ *    como <TipoDoc>_<Num>_c<sesión>-<N>.csv, un vendedor con varios archivos); desde ahí reciben líneas
+ *    como cualquier otro.
+ * El ritmo se controla contra el reloj, no por pausas fijas: cada 10 ms se escribe lo que falta para
+ * llegar a tasa × tiempo transcurrido, así que una escritura lenta no baja la tasa promedio (si el
+ * disco no da abasto, {@link #lineasPorSegundo()} queda por debajo del objetivo y se nota).
+ *
+ * Los archivos nuevos se crean de forma atómica (temporal + renombrado); las líneas agregadas
+ * pueden verse a medias un instante, como con una caja real (ver --anexos en {@link Main}).
+ */
+final class CargaSostenida {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final byte[] FIN_LINEA = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final Path ventasDir;
+    private final byte[][] ids;
+    private final List<Vendedor> vendedores;
+    private final double lineasPorS;
+    private final double archivosPorS;
+    private final int lote;
+    private final SplittableRandom rnd;
+    private final List<Path> destinos = new ArrayList<>();
+    private final String sesion = Long.toString(System.currentTimeMillis(), 36); // nombres nuevos en cada corrida
+
+    private final AtomicLong lineas = new AtomicLong();
+    private final AtomicLong archivos = new AtomicLong();
+    private volatile long inicioNanos;
+    private volatile long finNanos;
+    private volatile boolean detenida;
+
+    CargaSostenida(Catalogo<Producto> productos, Catalogo<Vendedor> vendedores, Path ventasDir,
+                   double lineasPorS, double archivosPorS, int lote, long semilla) throws IOException {
+        if (lineasPorS < 0) throw new IllegalArgumentException("--lineas-por-s no puede ser negativo: " + lineasPorS);
+        if (archivosPorS < 0) throw new IllegalArgumentException("--archivos-por-s no puede ser negativo: " + archivosPorS);
+        if (lote <= 0) throw new IllegalArgumentException("--lote debe ser > 0: " + lote);
+        if (productos.tamano() == 0 || vendedores.tamano() == 0) {
+            throw new IllegalArgumentException("Catálogos vacíos: genere antes el juego de datos");
+        }
+        this.ventasDir = ventasDir;
+        this.ids = new byte[productos.tamano()][];
+        for (int i = 0; i < ids.length; i++) ids[i] = productos.clave(i).getBytes(StandardCharsets.UTF_8);
+        this.vendedores = new ArrayList<>(vendedores.tamano());
+        for (int i = 0; i < vendedores.tamano(); i++) this.vendedores.add(vendedores.get(i));
+        this.lineasPorS = lineasPorS;
+        this.archivosPorS = archivosPorS;
+        this.lote = lote;
+        this.rnd = new SplittableRandom(semilla);
+
+        Files.createDirectories(ventasDir);
+        for (Path a : Main.listarArchivosVenta(ventasDir)) {
+            if (!ArchivosComprimidos.esGzip(a)) destinos.add(a);
+        }
+        if (destinos.isEmpty() && lineasPorS > 0 && archivosPorS == 0) {
+            throw new IllegalArgumentException("No hay archivos .csv en " + ventasDir
+                    + " a los que agregar líneas (use --archivos-por-s > 0)");
+        }
+    }
+
+    /** Escribe hasta que pasen 'duracionNanos' (0 = sin límite) o hasta {@link #detener()}. */
+    void ejecutar(long duracionNanos) throws IOException, InterruptedException {
+        inicioNanos = System.nanoTime();
+        long proximo = inicioNanos;
+        byte[] bufer = new byte[lote * 32];
+        try {
+            while (!detenida) {
+                long ahora = System.nanoTime();
+                long transcurrido = ahora - inicioNanos;
+                if (duracionNanos > 0 && transcurrido >= duracionNanos) break;
+                double seg = transcurrido / 1e9;
+
+                long archivosDebidos = (long) (archivosPorS * seg) - archivos.get();
+                for (long i = 0; i < archivosDebidos; i++) crearArchivo();
+
+                long lineasDebidas = (long) (lineasPorS * seg) - lineas.get();
+                while (lineasDebidas > 0 && !destinos.isEmpty()) {
+                    int k = (int) Math.min(lote, lineasDebidas);
+                    bufer = agregar(destinos.get(rnd.nextInt(destinos.size())), k, bufer);
+                    lineasDebidas -= k;
+                }
+
+                proximo += TICK_NANOS;
+                long espera = proximo - System.nanoTime();
+                if (espera > 0) {
+                    TimeUnit.NANOSECONDS.sleep(espera);
+                } else {
+                    proximo = System.nanoTime(); // atrasados: no se acumulan ticks perdidos
+                }
+            }
+        } finally {
+            finNanos = System.nanoTime();
+        }
+    }
+
+    void detener() {
+        detenida = true;
+    }
+
+    long lineas() {
+        return lineas.get();
+    }
+
+    long archivos() {
+        return archivos.get();
+    }
+
+    /** Tasa real de líneas desde el inicio (hasta ahora, o hasta el final si ya terminó). */
+    double lineasPorSegundo() {
+        if (inicioNanos == 0) return 0;
+        long fin = finNanos != 0 ? finNanos : System.nanoTime();
+        return lineas.get() / Math.max(1e-9, (fin - inicioNanos) / 1e9);
+    }
+
+    double archivosPorSegundo() {
+        if (inicioNanos == 0) return 0;
+        long fin = finNanos != 0 ? finNanos : System.nanoTime();
+        return archivos.get() / Math.max(1e-9, (fin - inicioNanos) / 1e9);
+    }
+
+    // =========================================================================================
+    // Escrituras
+    // =========================================================================================
+
+    private void crearArchivo() throws IOException {
+        Vendedor v = vendedores.get(rnd.nextInt(vendedores.size()));
+        long n = archivos.incrementAndGet();
+        Path archivo = ventasDir.resolve(v.getTipoDocumento() + "_" + v.getNumeroDocumento()
+                + "_c" + sesion + "-" + n + ".csv");
+        byte[] cabecera = (v.getTipoDocumento() + ";" + v.getNumeroDocumento() + System.lineSeparator())
+                .getBytes(StandardCharsets.UTF_8);
+        EscrituraAtomica.reemplazar(archivo, tmp -> Files.write(tmp, cabecera));
+        destinos.add(archivo);
+    }
+
+    /** 'k' líneas al final de 'archivo' en UNA escritura (O_APPEND). Devuelve el búfer, agrandado si hizo falta. */
+    private byte[] agregar(Path archivo, int k, byte[] bufer) throws IOException {
+        int pos = 0;
+        for (int i = 0; i < k; i++) {
+            byte[] id = ids[rnd.nextInt(ids.length)];
+            if (pos + id.length + 4 + FIN_LINEA.length > bufer.length) {
+                bufer = Arrays.copyOf(bufer, 2 * bufer.length + id.length + 4 + FIN_LINEA.length);
+            }
+            int cantidad = rnd.nextInt(1, 11); // 1..10, como el juego de datos
+            System.arraycopy(id, 0, bufer, pos, id.length);
+            pos += id.length;
+            bufer[pos++] = ';';
+            if (cantidad == 10) {
+                bufer[pos++] = '1';
+                bufer[pos++] = '0';
+            } else {
+                bufer[pos++] = (byte) ('0' + cantidad);
+            }
+            bufer[pos++] = ';';
+            System.arraycopy(FIN_LINEA, 0, bufer, pos, FIN_LINEA.length);
+            pos += FIN_LINEA.length;
+        }
+        try (OutputStream out = Files.newOutputStream(archivo, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            out.write(bufer, 0, pos);
+        } catch (NoSuchFileException ex) {
+            // Borrado por alguien más: deja de ser destino
+            destinos.remove(archivo);
+            return bufer;
+        }
+        lineas.addAndGet(k);
+        return bufer;
+    }
+}
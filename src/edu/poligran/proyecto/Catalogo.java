@@ -0,0 +1,39 @@
+package edu.poligran.proyecto;
+
+/**
+ * Catálogo (productos o vendedores) con ordinales densos 0..n-1 asignados en el orden de carga.
+ * Los acumuladores indexan arreglos primitivos con estos ordinales en lugar de usar mapas por clave.
+ *
+ * Si una clave se repite, el último elemento reemplaza al anterior y conserva su ordinal
+ * (mismo criterio que el HashMap.put que se usaba antes).
+ *
+ * Dos implementaciones:
+ *  - {@link CatalogoEnMemoria}: un objeto por fila en el heap (por defecto).
+ *  - {@link CatalogoColumnar}: columnas en ByteBuffer directos, fuera del heap (--catalogo=columnar).
+ *
+ * @param <T> Producto o Vendedor
+ */
+abstract class Catalogo<T> {
+
+    /** Agrega (o reemplaza) el elemento y devuelve su ordinal. */
+    abstract int agregar(String clave, T elemento);
+
+    /** Ordinal de la clave, o -1 si no está en el catálogo. */
+    abstract int ordinal(String clave);
+
+    abstract T get(int ordinal);
+
+    abstract String clave(int ordinal);
+
+    abstract int tamano();
+
+    boolean contiene(String clave) {
+        return ordinal(clave) >= 0;
+    }
+
+    /** Elemento por clave, o null si no existe. */
+    T buscar(String clave) {
+        int ord = ordinal(clave);
+        return ord < 0 ? null : get(ord);
+    }
+}
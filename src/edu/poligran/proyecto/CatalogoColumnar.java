@@ -0,0 +1,317 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Catálogo columnar fuera del heap (--catalogo=columnar), pensado para decenas de millones de filas.
+ *
+ * En {@link CatalogoEnMemoria} cada producto son unos diez objetos (Producto, dos String con sus
+ * arreglos, BigDecimal, nodo del HashMap, Integer...): a esa escala los encabezados y punteros ocupan
+ * la mayor parte del heap y el GC tiene que recorrerlos en cada pausa larga. Aquí ninguno existe:
+ *  - textos: UTF-8 precedido de su largo (int), en páginas de ByteBuffer directos (hasta 64 MiB);
+ *    una referencia (página, desplazamiento) cabe en un long;
+ *  - columnas: un long por fila en un ByteBuffer directo (referencia a texto o valor numérico);
+ *    la columna 0 es siempre la clave;
+ *  - índice clave -> ordinal: direccionamiento abierto con sondeo lineal en un ByteBuffer directo
+ *    (ranuras de 8 bytes: ordinal + 1, 0 = libre, y hash), consultable con un String o con bytes
+ *    UTF-8 (el motor mapeado busca así, sin armar Strings).
+ *
+ * Los Producto y Vendedor que devuelve {@link #get} se arman en el momento a partir de las columnas
+ * (objetos comunes del modelo, con sus validaciones) y no se guardan. Sólo se piden donde hacen falta
+ * (reportes, instantánea): al acumular ventas el precio se lee directo con {@link Productos#precioCentavos}.
+ *
+ * La memoria directa cuenta contra -XX:MaxDirectMemorySize (por defecto, el máximo del heap) y se
+ * libera cuando el GC recoge el catálogo. Si una clave se repite, sus textos nuevos se agregan y los
+ * anteriores quedan sin uso. Se carga en un solo hilo; después sólo se hacen lecturas absolutas
+ * (no mueven la posición de los búferes), así que se puede compartir entre hilos.
+ *
+ * @param <T> Producto o Vendedor
+ */
+abstract class CatalogoColumnar<T> extends Catalogo<T> {
+
+    private static final int PAGINA_MIN = 1 << 16;
+    private static final int PAGINA_MAX = 1 << 26;
+    private static final int CLAVE = 0;
+
+    // --- Textos ---
+    private ByteBuffer[] paginas = new ByteBuffer[4];
+    private int nPaginas;
+    private int libre; // primer byte libre de la última página
+
+    // --- Columnas e índice ---
+    private final ByteBuffer[] columnas;
+    private ByteBuffer indice;
+    private int mascara;
+    private int n;
+
+    CatalogoColumnar(int nColumnas, int capacidad) {
+        int filas = Math.max(16, capacidad);
+        columnas = new ByteBuffer[nColumnas];
+        for (int c = 0; c < nColumnas; c++) columnas[c] = ByteBuffer.allocateDirect(filas * 8);
+        int ranuras = Integer.highestOneBit(Math.max(4, filas * 2 - 1)) << 1;
+        indice = ByteBuffer.allocateDirect(ranuras * 8);
+        mascara = ranuras - 1;
+    }
+
+    // =========================================================================================
+    // Consultas
+    // =========================================================================================
+
+    @Override
+    int ordinal(String clave) {
+        int h = 1;
+        for (int j = 0; j < clave.length(); j++) {
+            char c = clave.charAt(j);
+            if (c >= 0x80) return ordinal(clave.getBytes(StandardCharsets.UTF_8)); // poco común: por bytes
+            h = 31 * h + c; // en ASCII el char es el byte UTF-8: mismo hash que por bytes
+        }
+        h = mezclar(h);
+        for (int i = h & mascara; ; i = (i + 1) & mascara) {
+            int ord = indice.getInt(i << 3) - 1;
+            if (ord < 0) return -1;
+            if (indice.getInt((i << 3) + 4) == h && igualAscii(valor(ord, CLAVE), clave)) return ord;
+        }
+    }
+
+    /** Ordinal de la clave cuyos bytes UTF-8 ocupan buf[ini, fin), o -1 si no existe. */
+    int ordinal(ByteBuffer buf, int ini, int fin) {
+        int h = 1;
+        for (int j = ini; j < fin; j++) h = 31 * h + buf.get(j);
+        h = mezclar(h);
+        for (int i = h & mascara; ; i = (i + 1) & mascara) {
+            int ord = indice.getInt(i << 3) - 1;
+            if (ord < 0) return -1;
+            if (indice.getInt((i << 3) + 4) == h && igualBytes(valor(ord, CLAVE), buf, ini, fin)) return ord;
+        }
+    }
+
+    private int ordinal(byte[] clave) {
+        return ordinal(ByteBuffer.wrap(clave), 0, clave.length);
+    }
+
+    @Override
+    String clave(int ordinal) {
+        comprobar(ordinal);
+        return texto(ordinal, CLAVE);
+    }
+
+    @Override
+    int tamano() {
+        return n;
+    }
+
+    /** Bytes reservados fuera del heap (textos, columnas e índice). */
+    long bytesFueraDelHeap() {
+        long total = indice.capacity();
+        for (ByteBuffer c : columnas) total += c.capacity();
+        for (int p = 0; p < nPaginas; p++) total += paginas[p].capacity();
+        return total;
+    }
+
+    // =========================================================================================
+    // Para las subclases
+    // =========================================================================================
+
+    /** Ordinal de la clave; si es nueva agrega la fila (las demás columnas las llena quien llama). */
+    final int agregarClave(String clave) {
+        int existente = ordinal(clave);
+        if (existente >= 0) return existente;
+
+        if ((long) n * 8 == columnas[0].capacity()) crecerColumnas();
+        if ((n + 1) * 2L > mascara + 1) crecerIndice();
+        int ord = n++;
+        ponerTexto(ord, CLAVE, clave);
+        insertar(ord, hash(clave.getBytes(StandardCharsets.UTF_8)));
+        return ord;
+    }
+
+    final void ponerTexto(int ordinal, int columna, String texto) {
+        ponerValor(ordinal, columna, agregarTexto(texto));
+    }
+
+    final void ponerValor(int ordinal, int columna, long valor) {
+        columnas[columna].putLong(ordinal * 8, valor);
+    }
+
+    final long valor(int ordinal, int columna) {
+        return columnas[columna].getLong(ordinal * 8);
+    }
+
+    final String texto(int ordinal, int columna) {
+        long ref = valor(ordinal, columna);
+        ByteBuffer p = paginas[(int) (ref >>> 32)].duplicate();
+        int off = (int) ref;
+        byte[] b = new byte[p.getInt(off)];
+        p.position(off + 4);
+        p.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    final void comprobar(int ordinal) {
+        if (ordinal < 0 || ordinal >= n) throw new IndexOutOfBoundsException("Ordinal " + ordinal + " de " + n);
+    }
+
+    // =========================================================================================
+    // Almacenamiento
+    // =========================================================================================
+
+    private long agregarTexto(String texto) {
+        byte[] b = texto.getBytes(StandardCharsets.UTF_8);
+        int largo = 4 + b.length;
+        if (largo > PAGINA_MAX) throw new IllegalArgumentException("Texto demasiado largo para el catálogo: " + b.length + " bytes");
+        if (nPaginas == 0 || libre + largo > paginas[nPaginas - 1].capacity()) {
+            // Páginas que se duplican hasta 64 MiB: un catálogo chico no reserva 64 MiB
+            int tam = nPaginas == 0 ? PAGINA_MIN : Math.min(PAGINA_MAX, paginas[nPaginas - 1].capacity() * 2);
+            if (nPaginas == paginas.length) paginas = Arrays.copyOf(paginas, nPaginas * 2);
+            paginas[nPaginas++] = ByteBuffer.allocateDirect(Math.max(tam, largo));
+            libre = 0;
+        }
+        ByteBuffer p = paginas[nPaginas - 1].duplicate();
+        p.putInt(libre, b.length);
+        p.position(libre + 4);
+        p.put(b);
+        long ref = ((long) (nPaginas - 1) << 32) | libre;
+        libre += largo;
+        return ref;
+    }
+
+    private void crecerColumnas() {
+        long tam = (long) columnas[0].capacity() * 2;
+        if (tam > Integer.MAX_VALUE) throw new IllegalStateException("Catálogo columnar lleno: " + n + " filas");
+        for (int c = 0; c < columnas.length; c++) {
+            ByteBuffer nueva = ByteBuffer.allocateDirect((int) tam);
+            ByteBuffer vieja = columnas[c].duplicate();
+            vieja.clear();
+            nueva.put(vieja);
+            columnas[c] = nueva;
+        }
+    }
+
+    private void crecerIndice() {
+        ByteBuffer viejo = indice;
+        int ranuras = (mascara + 1) * 2;
+        if (ranuras <= 0 || ranuras > Integer.MAX_VALUE / 8) {
+            throw new IllegalStateException("Catálogo columnar lleno: " + n + " filas");
+        }
+        indice = ByteBuffer.allocateDirect(ranuras * 8);
+        mascara = ranuras - 1;
+        for (int i = 0; i < viejo.capacity(); i += 8) {
+            int ord = viejo.getInt(i) - 1;
+            if (ord >= 0) insertar(ord, viejo.getInt(i + 4));
+        }
+    }
+
+    private void insertar(int ord, int h) {
+        int i = h & mascara;
+        while (indice.getInt(i << 3) != 0) i = (i + 1) & mascara;
+        indice.putInt(i << 3, ord + 1);
+        indice.putInt((i << 3) + 4, h);
+    }
+
+    private boolean igualAscii(long ref, String clave) {
+        ByteBuffer p = paginas[(int) (ref >>> 32)];
+        int off = (int) ref;
+        if (p.getInt(off) != clave.length()) return false;
+        off += 4;
+        for (int j = 0; j < clave.length(); j++) {
+            if (p.get(off + j) != clave.charAt(j)) return false;
+        }
+        return true;
+    }
+
+    private boolean igualBytes(long ref, ByteBuffer buf, int ini, int fin) {
+        ByteBuffer p = paginas[(int) (ref >>> 32)];
+        int off = (int) ref;
+        if (p.getInt(off) != fin - ini) return false;
+        off += 4;
+        for (int j = ini; j < fin; j++) {
+            if (p.get(off++) != buf.get(j)) return false;
+        }
+        return true;
+    }
+
+    private static int hash(byte[] k) {
+        int h = 1;
+        for (byte b : k) h = 31 * h + b;
+        return mezclar(h);
+    }
+
+    private static int mezclar(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    // =========================================================================================
+    // Productos y vendedores
+    // =========================================================================================
+
+    /** Columnas: clave (ID), nombre y precio en centavos. */
+    static final class Productos extends CatalogoColumnar<Producto> {
+        private static final int NOMBRE = 1;
+        private static final int CENTAVOS = 2;
+
+        Productos(int capacidad) {
+            super(3, capacidad);
+        }
+
+        @Override
+        int agregar(String clave, Producto p) {
+            long centavos = p.getPrecioCentavos();
+            int ord = agregarClave(clave);
+            ponerTexto(ord, NOMBRE, p.getNombre());
+            ponerValor(ord, CENTAVOS, centavos);
+            return ord;
+        }
+
+        @Override
+        Producto get(int ordinal) {
+            comprobar(ordinal);
+            return new Producto(texto(ordinal, CLAVE), texto(ordinal, NOMBRE),
+                    BigDecimal.valueOf(precioCentavos(ordinal), Main.MONEY_SCALE));
+        }
+
+        /** Precio sin armar el Producto (camino de cada línea de venta). */
+        long precioCentavos(int ordinal) {
+            return valor(ordinal, CENTAVOS);
+        }
+    }
+
+    /**
+     * Columnas: clave, nombres y apellidos. El tipo y el número de documento salen de la clave
+     * (TipoDoc;NumeroDoc, ver {@link Main#claveVendedor}), que es como se cargan los vendedores.
+     */
+    static final class Vendedores extends CatalogoColumnar<Vendedor> {
+        private static final int NOMBRES = 1;
+        private static final int APELLIDOS = 2;
+
+        Vendedores(int capacidad) {
+            super(3, capacidad);
+        }
+
+        @Override
+        int agregar(String clave, Vendedor v) {
+            if (v.getTipoDocumento().indexOf(';') >= 0
+                    || !clave.equals(Main.claveVendedor(v.getTipoDocumento(), v.getNumeroDocumento()))) {
+                throw new IllegalArgumentException("La clave " + clave + " no es TipoDoc;NumeroDoc del vendedor " + v);
+            }
+            int ord = agregarClave(clave);
+            ponerTexto(ord, NOMBRES, v.getNombres());
+            ponerTexto(ord, APELLIDOS, v.getApellidos());
+            return ord;
+        }
+
+        @Override
+        Vendedor get(int ordinal) {
+            comprobar(ordinal);
+            String clave = texto(ordinal, CLAVE);
+            int sep = clave.indexOf(';');
+            return new Vendedor(clave.substring(0, sep), clave.substring(sep + 1),
+                    texto(ordinal, NOMBRES), texto(ordinal, APELLIDOS));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package edu.poligran.proyecto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catálogo en el heap: mapa clave -> ordinal y listas de claves y elementos (un objeto por fila).
+ *
+ * @param <T> Producto o Vendedor
+ */
+final class CatalogoEnMemoria<T> extends Catalogo<T> {
+
+    private final Map<String, Integer> ordinales;
+    private final List<String> claves;
+    private final List<T> elementos;
+
+    CatalogoEnMemoria() {
+        this(16);
+    }
+
+    /** Catálogo dimensionado de antemano para 'capacidad' elementos (evita rehash al cargar). */
+    CatalogoEnMemoria(int capacidad) {
+        ordinales = new HashMap<>(Math.max(16, (int) (capacidad / 0.75f) + 1));
+        claves = new ArrayList<>(capacidad);
+        elementos = new ArrayList<>(capacidad);
+    }
+
+    @Override
+    int agregar(String clave, T elemento) {
+        Integer ord = ordinales.get(clave);
+        if (ord != null) {
+            elementos.set(ord, elemento);
+            return ord;
+        }
+        int nuevo = elementos.size();
+        ordinales.put(clave, nuevo);
+        claves.add(clave);
+        elementos.add(elemento);
+        return nuevo;
+    }
+
+    @Override
+    int ordinal(String clave) {
+        Integer ord = ordinales.get(clave);
+        return ord == null ? -1 : ord;
+    }
+
+    @Override
+    boolean contiene(String clave) {
+        return ordinales.containsKey(clave);
+    }
+
+    @Override
+    T buscar(String clave) {
+        Integer ord = ordinales.get(clave);
+        return ord == null ? null : elementos.get(ord);
+    }
+
+    @Override
+    T get(int ordinal) {
+        return elementos.get(ordinal);
+    }
+
+    @Override
+    String clave(int ordinal) {
+        return claves.get(ordinal);
+    }
+
+    @Override
+    int tamano() {
+        return elementos.size();
+    }
+}
@@ -0,0 +1,94 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+
+/**
+ * Comparación de rendimiento entre los motores de lectura de ventas ("flujo" y "mapeado").
+ * Recorre data/ventas varias veces con cada motor y muestra MB/s y líneas/s,
+ * verificando además que ambos motores producen exactamente los mismos acumulados.
+ *
+ * Opciones: --rondas=N (por defecto 5)  --calentamiento=N (por defecto 2)
+ *
+ * Sugerencia: generar antes un conjunto grande con GenerateInfoFiles.
+ */
+public class ComparacionLectores {
+
+    private static final Path BASE_DIR = Paths.get("data");
+
+    public static void main(String[] args) {
+        try {
+            Opciones op = Opciones.parsear(args, "rondas", "calentamiento");
+            int rondas = op.entero("rondas", 5);
+            int calentamiento = op.entero("calentamiento", 2);
+            if (rondas <= 0) throw new IllegalArgumentException("--rondas debe ser > 0: " + rondas);
+            if (calentamiento < 0) throw new IllegalArgumentException("--calentamiento no puede ser negativo: " + calentamiento);
+
+            Catalogo<Producto> productos = Main.cargarProductos(BASE_DIR.resolve("productos.csv"));
+            Catalogo<Vendedor> vendedores = Main.cargarVendedores(BASE_DIR.resolve("vendedores.csv"));
+
+            // *.csv y *.csv.gz, como en Main (GenerateInfoFiles --comprimir sólo deja .csv.gz)
+            List<Path> archivos = Main.listarArchivosVenta(BASE_DIR.resolve("ventas"));
+            if (archivos.isEmpty()) {
+                throw new IllegalStateException("No hay archivos de ventas en "
+                        + BASE_DIR.resolve("ventas").toAbsolutePath() + ": no hay nada que comparar");
+            }
+            long bytes = 0;
+            long lineas = 0;
+            for (Path archivo : archivos) {
+                bytes += Files.size(archivo); // en disco: de un .csv.gz, los comprimidos
+                lineas += contarLineas(archivo);
+            }
+            System.out.printf("Archivos: %d  Bytes: %d  Líneas: %d%n", archivos.size(), bytes, lineas);
+
+            Resultados flujo = medir("flujo", Main.crearLector("flujo", productos, vendedores),
+                    productos, vendedores, archivos, bytes, lineas, calentamiento, rondas);
+            Resultados mapeado = medir("mapeado", Main.crearLector("mapeado", productos, vendedores),
+                    productos, vendedores, archivos, bytes, lineas, calentamiento, rondas);
+
+            if (!flujo.igualA(mapeado)) throw new IllegalStateException("Los motores produjeron acumulados distintos");
+            System.out.println("✅ Ambos motores producen los mismos acumulados.");
+        } catch (Exception ex) {
+            System.err.println("❌ Error en la comparación: " + ex.getMessage());
+            ex.printStackTrace();
+        }
+    }
+
+    private static Resultados medir(String nombre, Main.LectorVentas lector,
+                                    Catalogo<Producto> productos, Catalogo<Vendedor> vendedores,
+                                    List<Path> archivos, long bytes, long lineas,
+                                    int calentamiento, int rondas) throws IOException {
+        Resultados ultimo = null;
+        for (int r = 0; r < calentamiento; r++) ultimo = pasada(lector, productos, vendedores, archivos);
+
+        long mejor = Long.MAX_VALUE;
+        for (int r = 0; r < rondas; r++) {
+            long t0 = System.nanoTime();
+            ultimo = pasada(lector, productos, vendedores, archivos);
+            mejor = Math.min(mejor, System.nanoTime() - t0);
+        }
+        double seg = Math.max(mejor, 1) / 1e9;
+        System.out.printf("%-8s mejor ronda: %8.1f ms  %8.1f MB/s  %12.0f líneas/s%n",
+                nombre, seg * 1e3, bytes / seg / (1024 * 1024), lineas / seg);
+        return ultimo;
+    }
+
+    private static Resultados pasada(Main.LectorVentas lector,
+                                     Catalogo<Producto> productos, Catalogo<Vendedor> vendedores,
+                                     List<Path> archivos) throws IOException {
+        Resultados res = new Resultados(productos, vendedores);
+        for (Path archivo : archivos) lector.procesar(archivo, res);
+        return res;
+    }
+
+    private static long contarLineas(Path archivo) throws IOException {
+        try (BufferedReader br = ArchivosComprimidos.nuevoLector(archivo)) {
+            return br.lines().count();
+        }
+    }
+}
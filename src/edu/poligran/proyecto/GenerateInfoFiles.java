@@ -5,11 +5,21 @@ import edu.poligran.proyecto.model.Vendedor;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * -----1ENTREGa 1 (Semana 3):
@@ -21,6 +31,31 @@ import java.util.*;
  *      * Luego N ventas, una por línea: IDProducto;CantidadVendida;    (con ';' final)
  *
  * No solicita datos al usuario. Imprime mensaje de éxito o error.
+ *
+ * Opciones (todas opcionales; sin argumentos genera el juego pequeño de siempre):
+ *  --productos=N     productos del catálogo (por defecto 20).
+ *  --vendedores=N    vendedores, uno por archivo de ventas (por defecto 8).
+ *  --ventas-min=N    ventas mínimas por vendedor (por defecto 10).
+ *  --ventas-max=N    ventas máximas por vendedor (por defecto 25).
+ *  --tamanos=X       reparto del número de ventas entre vendedores: "uniforme" (por defecto) o
+ *                    "pareto" (cola larga: pocos vendedores con archivos enormes).
+ *  --sesgo=S         popularidad de productos tipo Zipf con exponente S (0 = uniforme, por defecto).
+ *  --semilla=N       semilla de todo el juego de datos (por defecto 20250307).
+ *  --hilos=N         hilos para escribir los archivos de ventas (0 = uno por núcleo, por defecto).
+ *  --comprimir       escribe las ventas comprimidas con gzip (data/ventas/<TipoDoc>_<Num>.csv.gz);
+ *                    los catálogos siguen en texto plano.
+ *
+ * Carga sostenida (--carga): no genera un juego nuevo; sobre los catálogos y ventas ya generados
+ * agrega líneas y archivos a data/ventas a ritmo constante (ver {@link CargaSostenida}):
+ *  --lineas-por-s=X  líneas de venta por segundo (por defecto 1000).
+ *  --archivos-por-s=X archivos de ventas nuevos por segundo (por defecto 1).
+ *  --lote=N          líneas por escritura (por defecto 50).
+ *  --duracion-s=N    segundos de carga (0 = hasta Ctrl+C, por defecto).
+ * Para medir a la vez cuánto tarda Main con la carpeta viva, ver {@link PruebaCarga}.
+ *
+ * Reproducibilidad: los catálogos salen de un único SplittableRandom sembrado con --semilla; cada
+ * vendedor recibe además su propia semilla (sacada en orden del mismo generador) para su archivo
+ * de ventas. Así el resultado es idéntico byte a byte sin importar --hilos.
  */
 public class GenerateInfoFiles {
 
@@ -30,8 +65,15 @@ public class GenerateInfoFiles {
     private static final Path PRODUCTOS_FILE = OUT_DIR.resolve("productos.csv");
     private static final Path VENDEDORES_FILE = OUT_DIR.resolve("vendedores.csv");
 
-    // --- RNG reproducible (misma semilla) ---
-    private static final Random RNG = new Random(20250307L);
+    // --- RNG reproducible (misma semilla); main lo vuelve a sembrar con --semilla ---
+    private static final long SEMILLA_POR_DEFECTO = 20250307L;
+    private static SplittableRandom RNG = new SplittableRandom(SEMILLA_POR_DEFECTO);
+
+    /** Exponente de la Pareto de --tamanos=pareto (regla 80/20). */
+    private static final double ALFA_PARETO = 1.16;
+
+    private static final int TAM_BUFER = 1 << 20; // 1 MiB por archivo en escritura
+    private static final byte[] FIN_LINEA = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
 
     // --- Listas base para nombres ---
     private static final List<String> NOMBRES = Arrays.asList(
@@ -48,28 +90,109 @@ public class GenerateInfoFiles {
 
     public static void main(String[] args) {
         try {
+            Opciones op = Opciones.parsear(args, "productos", "vendedores", "ventas-min", "ventas-max", "tamanos",
+                    "sesgo", "semilla", "hilos", "comprimir", "carga", "lineas-por-s", "archivos-por-s", "lote",
+                    "duracion-s");
+            if (op.bandera("carga")) {
+                cargaSostenida(op);
+                return;
+            }
+            int nProductos = op.entero("productos", 20);
+            int nVendedores = op.entero("vendedores", 8);
+            int ventasMin = op.entero("ventas-min", 10);
+            int ventasMax = op.entero("ventas-max", 25);
+            String tamanos = op.texto("tamanos", "uniforme");
+            double sesgo = op.decimal("sesgo", 0);
+            int hilos = op.entero("hilos", 0);
+            boolean comprimir = op.bandera("comprimir");
+            if (hilos == 0) hilos = Runtime.getRuntime().availableProcessors();
+
+            if (ventasMin < 0 || ventasMax < ventasMin) {
+                throw new IllegalArgumentException("Se espera 0 <= --ventas-min <= --ventas-max");
+            }
+            if (!tamanos.equals("uniforme") && !tamanos.equals("pareto")) {
+                throw new IllegalArgumentException("--tamanos debe ser uniforme o pareto: " + tamanos);
+            }
+            if (sesgo < 0) throw new IllegalArgumentException("--sesgo no puede ser negativo: " + sesgo);
+            if (hilos < 0) throw new IllegalArgumentException("--hilos no puede ser negativo: " + hilos);
+
+            RNG = new SplittableRandom(op.largo("semilla", SEMILLA_POR_DEFECTO));
+            long t0 = System.nanoTime();
             prepararDirectorios();
 
             // 1) Generar productos.csv
-            List<Producto> catalogo = createProductsFile(20); // e.g., 20 productos
+            List<Producto> catalogo = createProductsFile(nProductos);
 
             // 2) Generar vendedores.csv
-            List<Vendedor> vendedores = createSalesManInfoFile(8); // e.g., 8 vendedores
+            List<Vendedor> vendedores = createSalesManInfoFile(nVendedores);
 
-            // 3) Un archivo de ventas por vendedor, con N ventas aleatorias
-            for (Vendedor v : vendedores) {
-                int ventas = 10 + RNG.nextInt(16); // 10..25
-                // Llamada CORRECTA a la sobrecarga con Vendedor + catálogo
-                createSalesMenFile(ventas, v, catalogo);
-            }
+            // 3) Un archivo de ventas por vendedor, en paralelo. Las semillas se sacan ANTES y en
+            //    orden, para que el contenido no dependa del hilo que escriba cada archivo.
+            long[] semillas = new long[vendedores.size()];
+            for (int i = 0; i < semillas.length; i++) semillas[i] = RNG.nextLong();
+
+            SelectorProductos selector = new SelectorProductos(catalogo, sesgo);
+            boolean pareto = tamanos.equals("pareto");
+            long lineas = generarVentas(vendedores, semillas, selector, ventasMin, ventasMax, pareto, hilos,
+                    comprimir);
 
+            long ms = Math.max(1, (System.nanoTime() - t0) / 1_000_000);
             System.out.println("✅ Archivos generados correctamente en: " + OUT_DIR.toAbsolutePath());
+            System.out.println("ℹ️  " + catalogo.size() + " productos, " + vendedores.size() + " vendedores, "
+                    + lineas + " ventas en " + ms + " ms (" + (lineas * 1000 / ms) + " ventas/s).");
         } catch (Exception e) {
             System.err.println("❌ Error durante la generación de archivos: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    /** --carga: escribe hasta --duracion-s e informa la tasa lograda cada 10 s. */
+    private static void cargaSostenida(Opciones op) throws Exception {
+        CargaSostenida carga = nuevaCarga(op, PRODUCTOS_FILE, VENDEDORES_FILE, VENTAS_DIR);
+        long duracion = TimeUnit.SECONDS.toNanos(op.largo("duracion-s", 0));
+        if (duracion < 0) throw new IllegalArgumentException("--duracion-s no puede ser negativo");
+
+        ExecutorService hilo = Executors.newSingleThreadExecutor();
+        try {
+            Future<Void> tarea = hilo.submit(() -> {
+                carga.ejecutar(duracion);
+                return null;
+            });
+            System.out.println("⏱️  Carga sostenida sobre " + VENTAS_DIR.toAbsolutePath() + " (Ctrl+C para terminar)");
+            while (true) {
+                try {
+                    tarea.get(10, TimeUnit.SECONDS);
+                    break;
+                } catch (TimeoutException te) {
+                    System.out.println("ℹ️  " + resumenCarga(carga));
+                } catch (ExecutionException ee) {
+                    break; // Main.esperar relanza la causa
+                }
+            }
+            Main.esperar(tarea);
+        } finally {
+            hilo.shutdownNow();
+        }
+        System.out.println("✅ Carga terminada: " + resumenCarga(carga));
+    }
+
+    /** Carga sostenida con las opciones --lineas-por-s, --archivos-por-s, --lote y --semilla. */
+    static CargaSostenida nuevaCarga(Opciones op, Path productosCsv, Path vendedoresCsv, Path ventasDir)
+            throws IOException {
+        if (!Files.exists(productosCsv) || !Files.exists(vendedoresCsv)) {
+            throw new IllegalArgumentException("Faltan los catálogos: ejecute antes GenerateInfoFiles sin --carga");
+        }
+        return new CargaSostenida(Main.cargarProductos(productosCsv), Main.cargarVendedores(vendedoresCsv),
+                ventasDir, op.decimal("lineas-por-s", 1000), op.decimal("archivos-por-s", 1),
+                op.entero("lote", 50), op.largo("semilla", SEMILLA_POR_DEFECTO));
+    }
+
+    static String resumenCarga(CargaSostenida carga) {
+        return carga.lineas() + " línea(s) y " + carga.archivos() + " archivo(s) nuevos ("
+                + String.format(Locale.ROOT, "%.0f líneas/s, %.2f archivos/s", carga.lineasPorSegundo(),
+                carga.archivosPorSegundo()) + ")";
+    }
+
     // =========================================================================================
     // MÉTODOS REQUERIDOS POR LA GUÍA
     // =========================================================================================
@@ -86,7 +209,7 @@ public class GenerateInfoFiles {
      */
     public static void createSalesMenFile(int randomSalesCount, String name, long id) throws IOException {
         Vendedor ficticio = new Vendedor("CC", String.valueOf(id), name, "");
-        createSalesMenFile(randomSalesCount, ficticio, Collections.<Producto>emptyList());
+        createSalesMenFile(randomSalesCount, ficticio, null, RNG.split(), new byte[TAM_BUFER], false);
     }
 
     /**
@@ -100,8 +223,7 @@ public class GenerateInfoFiles {
 
         List<Producto> productos = new ArrayList<>(productsCount);
 
-        try (BufferedWriter bw = Files.newBufferedWriter(PRODUCTOS_FILE, StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        try (BufferedWriter bw = nuevoEscritor(PRODUCTOS_FILE)) {
 
             for (int i = 1; i <= productsCount; i++) {
                 String id = String.format("P%04d", i);
@@ -131,10 +253,9 @@ public class GenerateInfoFiles {
         if (salesmanCount <= 0) throw new IllegalArgumentException("salesmanCount debe ser > 0");
 
         List<Vendedor> vendedores = new ArrayList<>(salesmanCount);
-        Set<String> usados = new HashSet<>();
+        Set<String> usados = new HashSet<>(Math.max(16, (int) (salesmanCount / 0.75f) + 1));
 
-        try (BufferedWriter bw = Files.newBufferedWriter(VENDEDORES_FILE, StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        try (BufferedWriter bw = nuevoEscritor(VENDEDORES_FILE)) {
 
             for (int i = 0; i < salesmanCount; i++) {
                 String tipo = TIPOS_DOC.get(RNG.nextInt(TIPOS_DOC.size()));
@@ -157,49 +278,149 @@ public class GenerateInfoFiles {
     // SOBRECARGAS / UTILIDADES INTERNAS
     // =========================================================================================
 
+    /** Escribe los archivos de ventas con 'hilos' hilos; devuelve el total de ventas escritas. */
+    private static long generarVentas(List<Vendedor> vendedores, long[] semillas, SelectorProductos selector,
+                                      int ventasMin, int ventasMax, boolean pareto, int hilos,
+                                      boolean comprimir) throws IOException {
+        AtomicInteger siguiente = new AtomicInteger();
+        AtomicLong lineas = new AtomicLong();
+        int nHilos = Math.max(1, Math.min(hilos, vendedores.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(nHilos);
+        try {
+            List<Future<Void>> tareas = new ArrayList<>(nHilos);
+            for (int h = 0; h < nHilos; h++) {
+                tareas.add(pool.submit(() -> {
+                    byte[] bufer = new byte[TAM_BUFER]; // uno por hilo, reutilizado archivo tras archivo
+                    int i;
+                    while ((i = siguiente.getAndIncrement()) < vendedores.size()) {
+                        SplittableRandom rnd = new SplittableRandom(semillas[i]);
+                        int ventas = pareto ? ventasPareto(rnd, ventasMin, ventasMax)
+                                : rnd.nextInt(ventasMin, ventasMax + 1);
+                        createSalesMenFile(ventas, vendedores.get(i), selector, rnd, bufer, comprimir);
+                        lineas.addAndGet(ventas);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> f : tareas) Main.esperar(f);
+        } finally {
+            pool.shutdownNow();
+        }
+        return lineas.get();
+    }
+
+    /** Pareto truncada: la mayoría de los archivos quedan cerca de 'min' y unos pocos llegan a 'max'. */
+    private static int ventasPareto(SplittableRandom rnd, int min, int max) {
+        double escala = Math.max(1, min);
+        double x = escala / Math.pow(1.0 - rnd.nextDouble(), 1.0 / ALFA_PARETO);
+        return (int) Math.min(max, Math.max(min, Math.floor(x)));
+    }
+
     /**
      * Sobrecarga coherente con el enunciado y con vendedores existentes:
      *  - 1ª línea: TipoDocumentoVendedor;NumeroDocumentoVendedor
      *  - N líneas: IDProducto;CantidadVendida;   (con ';' final)
+     *
+     * Las líneas se arman directamente en bytes dentro de 'bufer' (IDs ya codificados, cantidad
+     * con dígitos a mano) y se vuelcan al archivo en bloques grandes: sin Strings por línea.
+     * Con 'comprimir' el archivo es <TipoDoc>_<Num>.csv.gz y se borra la variante sin comprimir (y
+     * al revés), para que una corrida anterior no deje las mismas ventas dos veces en la carpeta.
      */
-    private static void createSalesMenFile(int randomSalesCount, Vendedor vendedor, List<Producto> catalogo) throws IOException {
+    private static void createSalesMenFile(int randomSalesCount, Vendedor vendedor, SelectorProductos selector,
+                                           SplittableRandom rnd, byte[] bufer, boolean comprimir) throws IOException {
         if (randomSalesCount < 0) throw new IllegalArgumentException("randomSalesCount no puede ser negativo");
 
         String nombreArchivo = vendedor.getTipoDocumento() + "_" + vendedor.getNumeroDocumento() + ".csv";
-        Path archivo = VENTAS_DIR.resolve(nombreArchivo);
+        Path archivo = ArchivosComprimidos.variante(VENTAS_DIR.resolve(nombreArchivo), comprimir);
+        Files.deleteIfExists(ArchivosComprimidos.variante(archivo, !comprimir));
 
-        try (BufferedWriter bw = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        try (OutputStream out = ArchivosComprimidos.nuevaSalida(Files.newOutputStream(archivo,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), comprimir)) {
 
             // Encabezado requerido por la guía:
             // TipoDocumentoVendedor;NumeroDocumentoVendedor
-            bw.write(vendedor.getTipoDocumento() + ";" + vendedor.getNumeroDocumento());
-            bw.newLine();
+            out.write((vendedor.getTipoDocumento() + ";" + vendedor.getNumeroDocumento() + System.lineSeparator())
+                    .getBytes(StandardCharsets.UTF_8));
 
             // Si no hay catálogo, sólo escribimos el encabezado (cumple el formato mínimo)
-            if (catalogo == null || catalogo.isEmpty()) return;
+            if (selector == null || selector.ids.length == 0) return;
 
             // Ventas: una por línea -> IDProducto;CantidadVendida;   (con ';' al final)
+            int pos = 0;
             for (int i = 0; i < randomSalesCount; i++) {
-                Producto p = catalogo.get(RNG.nextInt(catalogo.size()));
-                int cantidad = 1 + RNG.nextInt(10); // 1..10
-                bw.write(p.getId() + ";" + cantidad + ";");
-                bw.newLine();
+                byte[] id = selector.ids[selector.elegir(rnd)];
+                int cantidad = rnd.nextInt(1, 11); // 1..10
+                if (pos + id.length + 4 + FIN_LINEA.length > bufer.length) {
+                    out.write(bufer, 0, pos);
+                    pos = 0;
+                }
+                System.arraycopy(id, 0, bufer, pos, id.length);
+                pos += id.length;
+                bufer[pos++] = ';';
+                if (cantidad == 10) {
+                    bufer[pos++] = '1';
+                    bufer[pos++] = '0';
+                } else {
+                    bufer[pos++] = (byte) ('0' + cantidad);
+                }
+                bufer[pos++] = ';';
+                System.arraycopy(FIN_LINEA, 0, bufer, pos, FIN_LINEA.length);
+                pos += FIN_LINEA.length;
+            }
+            out.write(bufer, 0, pos);
+        }
+    }
+
+    /**
+     * Elige productos para las ventas. Es inmutable, así que lo comparten todos los hilos.
+     * Con sesgo > 0 el producto de rango r (P0001 es el rango 1) sale con probabilidad
+     * proporcional a 1 / r^sesgo; se busca en la distribución acumulada con búsqueda binaria.
+     */
+    private static final class SelectorProductos {
+        final byte[][] ids;
+        private final double[] acumulada; // null = uniforme
+
+        SelectorProductos(List<Producto> catalogo, double sesgo) {
+            ids = new byte[catalogo.size()][];
+            for (int i = 0; i < ids.length; i++) ids[i] = catalogo.get(i).getId().getBytes(StandardCharsets.UTF_8);
+
+            if (sesgo == 0) {
+                acumulada = null;
+                return;
             }
+            acumulada = new double[ids.length];
+            double suma = 0;
+            for (int r = 0; r < ids.length; r++) {
+                suma += 1.0 / Math.pow(r + 1, sesgo);
+                acumulada[r] = suma;
+            }
+            for (int r = 0; r < ids.length; r++) acumulada[r] /= suma;
+        }
+
+        int elegir(SplittableRandom rnd) {
+            if (acumulada == null) return rnd.nextInt(ids.length);
+            int i = Arrays.binarySearch(acumulada, rnd.nextDouble());
+            if (i < 0) i = -i - 1;
+            return Math.min(i, ids.length - 1);
         }
     }
 
+    private static BufferedWriter nuevoEscritor(Path archivo) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(archivo,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), StandardCharsets.UTF_8), TAM_BUFER);
+    }
+
     private static void prepararDirectorios() throws IOException {
         if (!Files.exists(OUT_DIR)) Files.createDirectories(OUT_DIR);
         if (!Files.exists(VENTAS_DIR)) Files.createDirectories(VENTAS_DIR);
     }
 
     private static String generarNumeroDocumento(Set<String> usados) {
+        char[] digitos = new char[10];
         while (true) {
             int len = 8 + RNG.nextInt(3); // 8..10 dígitos
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < len; i++) sb.append(RNG.nextInt(10));
-            String doc = sb.toString();
+            for (int i = 0; i < len; i++) digitos[i] = (char) ('0' + RNG.nextInt(10));
+            String doc = new String(digitos, 0, len);
             if (usados.add(doc)) return doc;
         }
     }
@@ -0,0 +1,46 @@
+package edu.poligran.proyecto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Huella (hash SHA-256) del contenido de un archivo, calculada en flujo con un búfer fijo:
+ * no importa el tamaño del archivo, nunca se carga completo en memoria.
+ */
+final class HuellaContenido {
+
+    private static final int BUFER = 1 << 16;
+
+    private HuellaContenido() { }
+
+    static byte[] calcular(Path archivo) throws IOException {
+        MessageDigest md = nuevoDigest();
+        byte[] buf = new byte[BUFER];
+        try (InputStream in = Files.newInputStream(archivo)) {
+            int n;
+            while ((n = in.read(buf)) > 0) md.update(buf, 0, n);
+        }
+        return md.digest();
+    }
+
+    /** Huella combinada de varios archivos (en el orden dado). Un archivo inexistente cuenta como vacío. */
+    static byte[] calcular(Path... archivos) throws IOException {
+        MessageDigest md = nuevoDigest();
+        for (Path a : archivos) {
+            md.update(Files.exists(a) ? calcular(a) : new byte[0]);
+        }
+        return md.digest();
+    }
+
+    static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible en esta JVM", e); // obligatorio en toda JVM
+        }
+    }
+}
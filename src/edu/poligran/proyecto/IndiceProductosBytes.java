@@ -0,0 +1,88 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Índice ID de producto -> ordinal, consultable directamente con un rango de bytes UTF-8,
+ * sin construir un String por línea. Direccionamiento abierto con sondeo lineal.
+ *
+ * Sólo lectura una vez construido: se puede compartir entre hilos.
+ *
+ * Con un catálogo columnar no se copia nada: se busca directo en su índice fuera del heap, que
+ * usa el mismo hash por bytes.
+ */
+final class IndiceProductosBytes {
+
+    private final byte[][] claves;
+    private final int[] ordinales;
+    private final int[] hashes;
+    private final int mascara;
+    private final CatalogoColumnar.Productos columnar;
+
+    IndiceProductosBytes(Catalogo<Producto> productos) {
+        if (productos instanceof CatalogoColumnar.Productos) {
+            columnar = (CatalogoColumnar.Productos) productos;
+            claves = null;
+            ordinales = null;
+            hashes = null;
+            mascara = 0;
+            return;
+        }
+        columnar = null;
+        int capacidad = Integer.highestOneBit(Math.max(4, productos.tamano() * 2 - 1)) << 1;
+        claves = new byte[capacidad][];
+        ordinales = new int[capacidad];
+        hashes = new int[capacidad];
+        mascara = capacidad - 1;
+
+        for (int ord = 0; ord < productos.tamano(); ord++) {
+            byte[] k = productos.clave(ord).getBytes(StandardCharsets.UTF_8);
+            int h = hash(k);
+            int i = h & mascara;
+            while (claves[i] != null) i = (i + 1) & mascara;
+            claves[i] = k;
+            ordinales[i] = ord;
+            hashes[i] = h;
+        }
+    }
+
+    /** Ordinal del producto cuyo ID ocupa buf[ini, fin), o -1 si no existe. */
+    int buscar(ByteBuffer buf, int ini, int fin) {
+        if (columnar != null) return columnar.ordinal(buf, ini, fin);
+        int h = hash(buf, ini, fin);
+        int i = h & mascara;
+        byte[] k;
+        while ((k = claves[i]) != null) {
+            if (hashes[i] == h && iguales(k, buf, ini, fin)) return ordinales[i];
+            i = (i + 1) & mascara;
+        }
+        return -1;
+    }
+
+    private static boolean iguales(byte[] k, ByteBuffer buf, int ini, int fin) {
+        if (k.length != fin - ini) return false;
+        for (int j = 0; j < k.length; j++) {
+            if (k[j] != buf.get(ini + j)) return false;
+        }
+        return true;
+    }
+
+    private static int hash(byte[] k) {
+        int h = 1;
+        for (byte b : k) h = 31 * h + b;
+        return mezclar(h);
+    }
+
+    private static int hash(ByteBuffer buf, int ini, int fin) {
+        int h = 1;
+        for (int j = ini; j < fin; j++) h = 31 * h + buf.get(j);
+        return mezclar(h);
+    }
+
+    private static int mezclar(int h) {
+        return h ^ (h >>> 16);
+    }
+}
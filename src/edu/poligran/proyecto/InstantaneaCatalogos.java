@@ -0,0 +1,201 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Instantánea binaria de los catálogos (EXTRA b: archivo serializado), para arrancar rápido.
+ *
+ * productos.csv y vendedores.csv siguen siendo la fuente de verdad: la instantánea guarda el
+ * tamaño y la huella SHA-256 del contenido de ambos CSV y sólo se usa si coinciden. La fecha de
+ * modificación no basta: un precio corregido con el mismo largo dentro de la resolución del reloj
+ * del sistema de archivos dejaba la instantánea "al día" con el precio viejo. Calcular la huella
+ * lee los CSV una vez, pero sin interpretarlos, que es lo caro. Si la instantánea no existe, está
+ * desactualizada o dañada, se leen los CSV y se vuelve a escribir (de forma atómica).
+ * La lectura mapea el archivo completo con FileChannel.map: no hay split ni BigDecimal(String)
+ * por fila, y los precios se reconstruyen directamente desde los centavos.
+ *
+ * Formato v2 (big-endian):
+ *   int MAGICO "VCAT", int VERSION,
+ *   long tamaño productos.csv, long tamaño vendedores.csv, 32 bytes huella de ambos (ver {@link HuellaContenido}),
+ *   int n, n x (texto id, texto nombre, long centavos),
+ *   int m, m x (texto tipoDoc, texto numeroDoc, texto nombres, texto apellidos)
+ *   donde texto = int largo + bytes UTF-8. Las filas van en orden de ordinal.
+ *
+ * Las advertencias del CSV (líneas inválidas, precios negativos...) sólo aparecen la vez que
+ * se lee el CSV, no cuando se usa la instantánea.
+ *
+ * Con columnar = true los catálogos se arman en {@link CatalogoColumnar} (fuera del heap); la
+ * instantánea es la misma en ambos casos.
+ */
+final class InstantaneaCatalogos {
+
+    private static final int MAGICO = 0x56434154; // "VCAT"
+    private static final int VERSION = 2;
+
+    final Catalogo<Producto> productos;
+    final Catalogo<Vendedor> vendedores;
+
+    private InstantaneaCatalogos(Catalogo<Producto> productos, Catalogo<Vendedor> vendedores) {
+        this.productos = productos;
+        this.vendedores = vendedores;
+    }
+
+    /** Carga los catálogos desde la instantánea si está al día; si no, desde los CSV (y la regenera). */
+    static InstantaneaCatalogos cargar(Path productosCsv, Path vendedoresCsv, Path instantanea) throws IOException {
+        return cargar(productosCsv, vendedoresCsv, instantanea, false);
+    }
+
+    static InstantaneaCatalogos cargar(Path productosCsv, Path vendedoresCsv, Path instantanea,
+                                       boolean columnar) throws IOException {
+        byte[] firma = firma(productosCsv, vendedoresCsv);
+
+        if (Files.isRegularFile(instantanea)) {
+            try {
+                InstantaneaCatalogos c = leer(instantanea, firma, columnar);
+                if (c != null) return informar(c);
+            } catch (IOException | RuntimeException ex) {
+                Bitacora.warn("Instantánea de catálogos ilegible (" + ex.getMessage() + "); se usan los CSV.");
+            }
+        }
+
+        InstantaneaCatalogos c = new InstantaneaCatalogos(
+                Main.cargarProductos(productosCsv, nuevosProductos(columnar, 0)),
+                Main.cargarVendedores(vendedoresCsv, nuevosVendedores(columnar, 0)));
+        try {
+            // Si un CSV cambió mientras se leía, la firma nueva no coincidirá y se regenerará luego
+            escribir(instantanea, firma, c);
+        } catch (IOException ex) {
+            Bitacora.warn("No se pudo guardar la instantánea de catálogos: " + ex.getMessage());
+        }
+        return informar(c);
+    }
+
+    private static Catalogo<Producto> nuevosProductos(boolean columnar, int capacidad) {
+        return columnar ? new CatalogoColumnar.Productos(capacidad) : new CatalogoEnMemoria<>(capacidad);
+    }
+
+    private static Catalogo<Vendedor> nuevosVendedores(boolean columnar, int capacidad) {
+        return columnar ? new CatalogoColumnar.Vendedores(capacidad) : new CatalogoEnMemoria<>(capacidad);
+    }
+
+    /** Deja en la bitácora cuánta memoria directa ocupan los catálogos columnares. */
+    private static InstantaneaCatalogos informar(InstantaneaCatalogos c) {
+        if (c.productos instanceof CatalogoColumnar && c.vendedores instanceof CatalogoColumnar) {
+            long bytes = ((CatalogoColumnar<?>) c.productos).bytesFueraDelHeap()
+                    + ((CatalogoColumnar<?>) c.vendedores).bytesFueraDelHeap();
+            Bitacora.info("Catálogos columnares: " + c.productos.tamano() + " producto(s), " + c.vendedores.tamano()
+                    + " vendedor(es), " + String.format(Locale.ROOT, "%.1f", bytes / 1048576.0) + " MiB fuera del heap.");
+        }
+        return c;
+    }
+
+    /** Tamaños de ambos CSV seguidos de la huella de su contenido. */
+    private static byte[] firma(Path productosCsv, Path vendedoresCsv) throws IOException {
+        return ByteBuffer.allocate(16 + 32)
+                .putLong(Files.size(productosCsv))
+                .putLong(Files.size(vendedoresCsv))
+                .put(HuellaContenido.calcular(productosCsv, vendedoresCsv))
+                .array();
+    }
+
+    // =========================================================================================
+    // Lectura (mapeada)
+    // =========================================================================================
+
+    /** Devuelve null si la instantánea no corresponde a los CSV actuales. */
+    private static InstantaneaCatalogos leer(Path instantanea, byte[] firma, boolean columnar) throws IOException {
+        try (FileChannel ch = FileChannel.open(instantanea, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) return null; // no cabe en un solo mapeo: se usa el CSV
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+
+            if (buf.getInt() != MAGICO || buf.getInt() != VERSION) return null;
+            for (byte f : firma) {
+                if (buf.get() != f) return null;
+            }
+
+            int n = leerTamano(buf);
+            Catalogo<Producto> productos = nuevosProductos(columnar, n);
+            for (int i = 0; i < n; i++) {
+                String id = leerTexto(buf);
+                String nombre = leerTexto(buf);
+                BigDecimal precio = BigDecimal.valueOf(buf.getLong(), Main.MONEY_SCALE);
+                productos.agregar(id, new Producto(id, nombre, precio));
+            }
+
+            int m = leerTamano(buf);
+            Catalogo<Vendedor> vendedores = nuevosVendedores(columnar, m);
+            for (int i = 0; i < m; i++) {
+                Vendedor v = new Vendedor(leerTexto(buf), leerTexto(buf), leerTexto(buf), leerTexto(buf));
+                vendedores.agregar(Main.claveVendedor(v.getTipoDocumento(), v.getNumeroDocumento()), v);
+            }
+            return new InstantaneaCatalogos(productos, vendedores);
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("instantánea truncada", ex);
+        }
+    }
+
+    private static int leerTamano(ByteBuffer buf) throws IOException {
+        int n = buf.getInt();
+        if (n < 0 || n > buf.remaining()) throw new IOException("tamaño inválido " + n);
+        return n;
+    }
+
+    private static String leerTexto(ByteBuffer buf) throws IOException {
+        byte[] b = new byte[leerTamano(buf)];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    // =========================================================================================
+    // Escritura
+    // =========================================================================================
+
+    private static void escribir(Path instantanea, byte[] firma, InstantaneaCatalogos c) throws IOException {
+        EscrituraAtomica.reemplazar(instantanea, tmp -> {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGICO);
+                out.writeInt(VERSION);
+                out.write(firma);
+
+                out.writeInt(c.productos.tamano());
+                for (int i = 0; i < c.productos.tamano(); i++) {
+                    Producto p = c.productos.get(i);
+                    escribirTexto(out, p.getId());
+                    escribirTexto(out, p.getNombre());
+                    out.writeLong(p.getPrecioCentavos());
+                }
+
+                out.writeInt(c.vendedores.tamano());
+                for (int i = 0; i < c.vendedores.tamano(); i++) {
+                    Vendedor v = c.vendedores.get(i);
+                    escribirTexto(out, v.getTipoDocumento());
+                    escribirTexto(out, v.getNumeroDocumento());
+                    escribirTexto(out, v.getNombres());
+                    escribirTexto(out, v.getApellidos());
+                }
+            }
+        });
+    }
+
+    private static void escribirTexto(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+}
@@ -0,0 +1,319 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Motor de lectura de ventas "mapeado" (--lector=mapeado).
+ *
+ * Mapea el archivo con FileChannel.map y recorre los bytes UTF-8 buscando ';' y fin de línea.
+ * El ID de producto se busca en un {@link IndiceProductosBytes} y la cantidad se convierte
+ * directamente desde los bytes: en el camino feliz no se crea ningún String por línea
+ * (ni trim, ni substring, ni split). Los Strings sólo aparecen en los ejemplos de rechazo.
+ *
+ * Reglas idénticas al motor por flujo de {@link Main}:
+ *  - 1ª línea: TipoDoc;NumeroDoc (se interpreta con {@link Main#leerCabecera}).
+ *  - Líneas en blanco se ignoran; se tolera un ';' final.
+ *  - Fin de línea: '\n', '\r' o "\r\n" (igual que BufferedReader.readLine).
+ *  - Misma validación y mismos rechazos (línea inválida, producto inexistente, cantidad inválida/no positiva).
+ *
+ * Archivos de más de 2 GiB se recorren en ventanas mapeadas que siempre terminan en un fin de línea.
+ * Los archivos gzip no se pueden mapear: se leen con el motor por flujo, que los descomprime al vuelo.
+ */
+final class LectorVentasMapeado implements Main.LectorVentas {
+
+    private static final int VENTANA = 1 << 26; // 64 MiB por mapeo
+    private static final long NO_SIMPLE = Long.MIN_VALUE;
+
+    private final IndiceProductosBytes indice;
+    private final Catalogo<Producto> productos;
+    private final Catalogo<Vendedor> vendedores;
+
+    LectorVentasMapeado(Catalogo<Producto> productos, Catalogo<Vendedor> vendedores) {
+        this.indice = new IndiceProductosBytes(productos);
+        this.productos = productos;
+        this.vendedores = vendedores;
+    }
+
+    @Override
+    public void procesar(Path archivo, Resultados res) throws IOException {
+        // Un archivo chico se recorre con UN solo mapeo (cabecera y cuerpo): cada mapeo ocupa un área
+        // del proceso hasta que el GC lo libera y el límite (vm.max_map_count) ronda los 65 000.
+        try (FileChannel ch = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (ArchivosComprimidos.esGzip(archivo, ch)) {
+                Main.procesarArchivoVenta(archivo, productos, vendedores, res);
+                return;
+            }
+            long tam = ch.size();
+            if (tam == 0) {
+                res.rechazar(MotivoRechazo.ARCHIVO_VACIO, null);
+                return;
+            }
+
+            String claveVend = null;
+            int ordVend = -1;
+            long pos = 0;
+            int ventana = VENTANA;
+            while (pos < tam) {
+                int largo = (int) Math.min(ventana, tam - pos);
+                boolean ultima = pos + largo == tam;
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, largo);
+
+                int ini = 0;
+                if (claveVend == null) {
+                    int finCab = buscarFinLinea(buf, 0, largo);
+                    if (finCab < 0 && !ultima) {
+                        ventana = agrandar(ventana, archivo);
+                        continue;
+                    }
+                    if (finCab < 0) finCab = largo;
+                    res.lineasArchivo++;
+                    claveVend = Main.leerCabecera(texto(buf, 0, finCab), vendedores, res);
+                    if (claveVend == null) {
+                        res.bytesArchivo += finCab; // cabecera inválida: el resto no se lee
+                        return;
+                    }
+                    ordVend = vendedores.ordinal(claveVend);
+                    ini = saltarFinLinea(buf, finCab, largo);
+                }
+
+                int consumido = escanear(buf, ini, largo, ultima, ordVend, claveVend, res);
+                if (consumido == 0 && !ultima) {
+                    // Una sola línea no cabe en la ventana: se mapea una más grande.
+                    ventana = agrandar(ventana, archivo);
+                    continue;
+                }
+                pos += consumido;
+            }
+            res.bytesArchivo += tam;
+        }
+    }
+
+    /**
+     * Cabecera del archivo (misma regla que el motor por flujo): devuelve la clave del vendedor, o
+     * null si el archivo está vacío o la cabecera es inválida (rechazo ya contado en 'res').
+     * La usa la lectura por tramos, que luego recorre el cuerpo con {@link #escanearRango}.
+     */
+    String leerCabecera(FileChannel ch, Path archivo, Resultados res) throws IOException {
+        long tam = ch.size();
+        if (tam == 0) {
+            res.rechazar(MotivoRechazo.ARCHIVO_VACIO, null);
+            return null;
+        }
+        int finCab = (int) finPrimeraLinea(ch, archivo);
+        res.lineasArchivo++;
+        return Main.leerCabecera(texto(ch.map(FileChannel.MapMode.READ_ONLY, 0, finCab), 0, finCab), vendedores, res);
+    }
+
+    /** Posición donde empiezan las líneas de venta (tras el fin de línea de la cabecera). */
+    static long inicioCuerpo(FileChannel ch, Path archivo) throws IOException {
+        return saltarFinLinea(ch, finPrimeraLinea(ch, archivo));
+    }
+
+    private static long finPrimeraLinea(FileChannel ch, Path archivo) throws IOException {
+        long tam = ch.size();
+        int ventana = 1 << 16;
+        while (true) {
+            int largo = (int) Math.min(ventana, tam);
+            int fin = buscarFinLinea(ch.map(FileChannel.MapMode.READ_ONLY, 0, largo), 0, largo);
+            if (fin >= 0) return fin;
+            if (largo == tam) return tam;
+            ventana = agrandar(ventana, archivo);
+        }
+    }
+
+    /**
+     * Procesa las líneas de [desde, hasta) del archivo en ventanas mapeadas que siempre terminan en
+     * un fin de línea. 'desde' debe ser un inicio de línea y 'hasta' un fin de línea o el final del
+     * archivo (así lo usan también los tramos de {@link LectorVentasPorTramos}).
+     */
+    void escanearRango(FileChannel ch, long desde, long hasta, int ordVend, String claveVend,
+                       Resultados res, Path archivo) throws IOException {
+        long pos = desde;
+        int ventana = VENTANA;
+        while (pos < hasta) {
+            int largo = (int) Math.min(ventana, hasta - pos);
+            boolean ultima = pos + largo == hasta;
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, largo);
+            int consumido = escanear(buf, 0, largo, ultima, ordVend, claveVend, res);
+            if (consumido == 0 && !ultima) {
+                // Una sola línea no cabe en la ventana: se mapea una más grande.
+                ventana = agrandar(ventana, archivo);
+                continue;
+            }
+            pos += consumido;
+        }
+    }
+
+    /**
+     * Procesa las líneas completas de buf[ini, lim). Si no es la última ventana, la línea final
+     * sin terminador se deja para la siguiente. Devuelve la posición hasta donde se consumió.
+     */
+    int escanear(ByteBuffer buf, int ini, int lim, boolean ultima,
+                 int ordVend, String claveVend, Resultados res) {
+        int inicioLinea = ini;
+        for (int j = ini; j < lim; j++) {
+            byte b = buf.get(j);
+            if (b == '\n' || b == '\r') {
+                procesarLinea(buf, inicioLinea, j, ordVend, claveVend, res);
+                inicioLinea = j + 1;
+            }
+        }
+        if (inicioLinea < lim && ultima) {
+            procesarLinea(buf, inicioLinea, lim, ordVend, claveVend, res);
+            return lim;
+        }
+        return inicioLinea;
+    }
+
+    private void procesarLinea(ByteBuffer buf, int a, int b,
+                               int ordVend, String claveVend, Resultados res) {
+        int ini = saltarBlancos(buf, a, b);
+        int fin = recortarBlancos(buf, ini, b);
+        if (ini == fin) return;
+        res.lineasArchivo++;
+
+        // Si termina en ';' lo quitamos (equivale al substring del motor por flujo)
+        if (buf.get(fin - 1) == ';') fin--;
+
+        // Equivale a split(";").length < 2: no hay ';' o tras el primero sólo quedan ';'
+        int sep = buscar(buf, (byte) ';', ini, fin);
+        if (sep < 0 || !hayAlgoDistintoDeSeparador(buf, sep + 1, fin)) {
+            res.rechazar(MotivoRechazo.LINEA_INVALIDA,
+                    res.quiereEjemplo(MotivoRechazo.LINEA_INVALIDA) ? texto(buf, a, b) : null);
+            return;
+        }
+        int finCant = buscar(buf, (byte) ';', sep + 1, fin);
+        if (finCant < 0) finCant = fin;
+
+        int idIni = saltarBlancos(buf, ini, sep);
+        int idFin = recortarBlancos(buf, idIni, sep);
+        int cIni = saltarBlancos(buf, sep + 1, finCant);
+        int cFin = recortarBlancos(buf, cIni, finCant);
+
+        int ordProd = indice.buscar(buf, idIni, idFin);
+        if (ordProd < 0) {
+            res.rechazar(MotivoRechazo.PRODUCTO_DESCONOCIDO,
+                    res.quiereEjemplo(MotivoRechazo.PRODUCTO_DESCONOCIDO) ? texto(buf, idIni, idFin) : null);
+            return;
+        }
+
+        long valor = parsearEntero(buf, cIni, cFin);
+        int cantidad;
+        if (valor != NO_SIMPLE) {
+            cantidad = (int) valor;
+        } else {
+            // Caso raro (signo suelto, dígitos no ASCII, ceros de relleno, desborde...):
+            // se delega en Integer.parseInt para conservar exactamente su semántica.
+            String cantStr = texto(buf, cIni, cFin);
+            try {
+                cantidad = Integer.parseInt(cantStr);
+            } catch (NumberFormatException nfe) {
+                res.rechazar(MotivoRechazo.CANTIDAD_INVALIDA, cantStr);
+                return;
+            }
+        }
+        if (cantidad <= 0) {
+            res.rechazar(MotivoRechazo.CANTIDAD_INVALIDA,
+                    res.quiereEjemplo(MotivoRechazo.CANTIDAD_INVALIDA) ? texto(buf, cIni, cFin) : null);
+            return;
+        }
+
+        res.registrarVenta(ordVend, claveVend, ordProd, cantidad);
+    }
+
+    // =========================================================================================
+    // Utilidades sobre bytes
+    // =========================================================================================
+
+    /** Entero ASCII con signo opcional, o NO_SIMPLE si hay que delegar en Integer.parseInt. */
+    static long parsearEntero(ByteBuffer buf, int ini, int fin) {
+        if (ini >= fin || fin - ini > 11) return NO_SIMPLE;
+        int j = ini;
+        boolean negativo = false;
+        byte b0 = buf.get(j);
+        if (b0 == '-' || b0 == '+') {
+            negativo = b0 == '-';
+            if (++j == fin) return NO_SIMPLE;
+        }
+        long v = 0;
+        for (; j < fin; j++) {
+            int d = buf.get(j) - '0';
+            if (d < 0 || d > 9) return NO_SIMPLE;
+            v = v * 10 + d;
+        }
+        if (negativo) v = -v;
+        return (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) ? NO_SIMPLE : v;
+    }
+
+    // Mismo criterio que String.trim(): bytes <= ' ' (en UTF-8 ningún multibyte cae en ese rango)
+    static int saltarBlancos(ByteBuffer buf, int ini, int fin) {
+        while (ini < fin && (buf.get(ini) & 0xFF) <= ' ') ini++;
+        return ini;
+    }
+
+    static int recortarBlancos(ByteBuffer buf, int ini, int fin) {
+        while (fin > ini && (buf.get(fin - 1) & 0xFF) <= ' ') fin--;
+        return fin;
+    }
+
+    static int buscar(ByteBuffer buf, byte b, int ini, int fin) {
+        for (int j = ini; j < fin; j++) {
+            if (buf.get(j) == b) return j;
+        }
+        return -1;
+    }
+
+    static int buscarFinLinea(ByteBuffer buf, int ini, int fin) {
+        for (int j = ini; j < fin; j++) {
+            byte b = buf.get(j);
+            if (b == '\n' || b == '\r') return j;
+        }
+        return -1;
+    }
+
+    /** Igual que {@link #saltarFinLinea(ByteBuffer, int, int)} pero sobre el canal completo. */
+    static long saltarFinLinea(FileChannel ch, long pos) throws IOException {
+        long tam = ch.size();
+        if (pos >= tam) return tam;
+        int largo = (int) Math.min(2, tam - pos);
+        return pos + saltarFinLinea(ch.map(FileChannel.MapMode.READ_ONLY, pos, largo), 0, largo);
+    }
+
+    /** Posición tras el terminador en 'pos' ("\r\n" cuenta como uno solo). */
+    static int saltarFinLinea(ByteBuffer buf, int pos, int lim) {
+        if (pos >= lim) return lim;
+        if (buf.get(pos) == '\r' && pos + 1 < lim && buf.get(pos + 1) == '\n') return pos + 2;
+        return pos + 1;
+    }
+
+    private static boolean hayAlgoDistintoDeSeparador(ByteBuffer buf, int ini, int fin) {
+        for (int j = ini; j < fin; j++) {
+            if (buf.get(j) != ';') return true;
+        }
+        return false;
+    }
+
+    static String texto(ByteBuffer buf, int ini, int fin) {
+        byte[] tmp = new byte[fin - ini];
+        ByteBuffer d = buf.duplicate();
+        d.position(ini);
+        d.get(tmp);
+        return new String(tmp, StandardCharsets.UTF_8);
+    }
+
+    static int agrandar(int ventana, Path archivo) throws IOException {
+        if (ventana == Integer.MAX_VALUE) {
+            throw new IOException("Línea de más de 2 GiB en " + archivo.getFileName());
+        }
+        return (int) Math.min(Integer.MAX_VALUE, 2L * ventana);
+    }
+}
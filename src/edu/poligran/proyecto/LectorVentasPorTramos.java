@@ -0,0 +1,142 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lectura paralela de UN archivo de ventas grande (con --hilos > 1).
+ *
+ * Repartir archivos entre hilos no ayuda cuando un vendedor manda un único archivo de 20 GB. Aquí,
+ * tras la cabecera TipoDoc;NumeroDoc, el cuerpo se corta en tramos de bytes alineados a fin de
+ * línea; cada tramo se analiza en su propio {@link Resultados} con el motor por bytes de
+ * {@link LectorVentasMapeado} y al final se fusionan en orden. Todas las líneas se atribuyen al
+ * vendedor de la cabecera y se validan con las mismas reglas que en la lectura de un solo hilo,
+ * así que totales, rechazos y ejemplos del diagnóstico salen iguales.
+ *
+ * Los archivos chicos (menos de dos tramos) y los comprimidos con gzip (no se pueden cortar sin
+ * descomprimirlos desde el principio) van al motor normal. Los tramos corren en un pool
+ * propio de 'hilos' hilos compartido por todos los archivos, de modo que con varios archivos
+ * grandes en paralelo no se multiplican los hilos ni los acumulados en memoria.
+ */
+final class LectorVentasPorTramos implements Main.LectorVentas {
+
+    static final int TRAMO_MB_POR_DEFECTO = 64;
+
+    private final Main.LectorVentas normal;
+    private final Catalogo<Producto> productos;
+    private final Catalogo<Vendedor> vendedores;
+    private final int hilos;
+    private final long tramoBytes;
+    private final ThreadPoolExecutor pool;
+    private LectorVentasMapeado mapeado; // se crea con el primer archivo grande
+
+    LectorVentasPorTramos(Main.LectorVentas normal, Catalogo<Producto> productos,
+                          Catalogo<Vendedor> vendedores, int hilos, int tramoMb) {
+        if (tramoMb <= 0) throw new IllegalArgumentException("--tramo-mb debe ser > 0: " + tramoMb);
+        this.normal = normal;
+        this.productos = productos;
+        this.vendedores = vendedores;
+        this.hilos = hilos;
+        this.tramoBytes = tramoMb * 1024L * 1024L;
+        if (normal instanceof LectorVentasMapeado) mapeado = (LectorVentasMapeado) normal;
+
+        // Hilos daemon que se terminan solos al quedar ociosos: el lector no necesita cerrarse
+        AtomicInteger n = new AtomicInteger();
+        pool = new ThreadPoolExecutor(hilos, hilos, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "tramos-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void procesar(Path archivo, Resultados res) throws IOException {
+        if (Files.size(archivo) < 2 * tramoBytes || ArchivosComprimidos.esGzip(archivo)) {
+            normal.procesar(archivo, res);
+            return;
+        }
+        LectorVentasMapeado motor = motor();
+        try (FileChannel ch = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            res.bytesArchivo += ch.size();
+            String claveVend = motor.leerCabecera(ch, archivo, res);
+            if (claveVend == null) return;
+            int ordVend = vendedores.ordinal(claveVend);
+
+            long[] cortes = cortar(ch, LectorVentasMapeado.inicioCuerpo(ch, archivo), archivo);
+            List<Future<Resultados>> tramos = new ArrayList<>(cortes.length - 1);
+            for (int i = 0; i + 1 < cortes.length; i++) {
+                long desde = cortes[i];
+                long hasta = cortes[i + 1];
+                tramos.add(pool.submit(() -> {
+                    Resultados parcial = new Resultados(productos, vendedores);
+                    motor.escanearRango(ch, desde, hasta, ordVend, claveVend, parcial, archivo);
+                    return parcial;
+                }));
+            }
+            try {
+                // En orden de archivo: los ejemplos del diagnóstico son los primeros, como en un solo hilo
+                for (Future<Resultados> f : tramos) {
+                    Resultados parcial = Main.esperar(f);
+                    res.fusionar(parcial);
+                    res.sumarDiagnostico(parcial);
+                }
+            } finally {
+                for (Future<Resultados> f : tramos) f.cancel(true);
+            }
+        }
+    }
+
+    private synchronized LectorVentasMapeado motor() {
+        if (mapeado == null) mapeado = new LectorVentasMapeado(productos, vendedores);
+        return mapeado;
+    }
+
+    /**
+     * Límites de los tramos: cortes[0] = inicio del cuerpo, el último = fin del archivo. Cada corte
+     * intermedio queda justo después de un fin de línea, así ninguna línea se parte entre dos tramos.
+     */
+    private long[] cortar(FileChannel ch, long inicio, Path archivo) throws IOException {
+        long tam = ch.size();
+        int n = (int) Math.max(1, Math.min(hilos, (tam - inicio) / tramoBytes));
+        long[] cortes = new long[n + 1];
+        cortes[0] = inicio;
+        for (int i = 1; i < n; i++) {
+            long nominal = inicio + (tam - inicio) / n * i;
+            cortes[i] = alinear(ch, Math.max(nominal, cortes[i - 1]), archivo);
+        }
+        cortes[n] = tam;
+        return cortes;
+    }
+
+    /** Primera posición >= pos que empieza una línea (o el tamaño del archivo). */
+    private static long alinear(FileChannel ch, long pos, Path archivo) throws IOException {
+        long tam = ch.size();
+        if (pos >= tam) return tam;
+        // Si pos ya empieza una línea, el byte anterior es un fin de línea
+        long desde = pos - 1;
+        int ventana = 1 << 16;
+        while (true) {
+            int largo = (int) Math.min(ventana, tam - desde);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, desde, largo);
+            int fin = LectorVentasMapeado.buscarFinLinea(buf, 0, largo);
+            if (fin >= 0) return LectorVentasMapeado.saltarFinLinea(ch, desde + fin);
+            if (desde + largo == tam) return tam;
+            ventana = LectorVentasMapeado.agrandar(ventana, archivo);
+        }
+    }
+}
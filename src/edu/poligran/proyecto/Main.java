@@ -6,12 +6,16 @@ import edu.poligran.proyecto.model.Vendedor;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ENTREGa 2 (Semana 5):
@@ -22,222 +26,660 @@ import java.util.stream.Collectors;
  * Formatos de entrada esperados:
  *  - data/productos.csv:     ID;Nombre;Precio
  *  - data/vendedores.csv:    TipoDoc;NumeroDoc;Nombres;Apellidos
- *  - data/ventas/*.csv:
+ *  - data/ventas/*.csv (o *.csv.gz):
  *        Línea 1: TipoDocVendedor;NumeroDocVendedor
  *        Líneas siguientes: IDProducto;Cantidad;
  *
+ * Los catálogos se guardan además en data/catalogos.bin (ver {@link InstantaneaCatalogos}) para
+ * que las siguientes corridas arranquen sin volver a interpretar los CSV mientras no cambien.
+ *
+ * Opciones (línea de comandos, todas opcionales):
+ *  --hilos=N      procesa los archivos de ventas con N hilos (1 = secuencial, 0 = un hilo por núcleo).
+ *                 Los reportes son idénticos byte a byte a los de la ejecución secuencial.
+ *  --lector=X     motor de lectura de ventas: "flujo" (por defecto, BufferedReader línea a línea)
+ *                 o "mapeado" (FileChannel.map + escaneo de bytes, ver {@link LectorVentasMapeado}).
+ *  --incremental  sólo procesa archivos de ventas nuevos o modificados desde la corrida anterior;
+ *                 el resto se toma del manifiesto data/.incremental/manifiesto.bin
+ *                 (ver {@link ProcesamientoIncremental}).
+ *  --anexos       como --incremental, pero de un archivo que sólo creció al final lee únicamente
+ *                 los bytes nuevos (si el inicio ya procesado cambió, lo lee completo).
+ *  --consolidar   omite los archivos de ventas idénticos byte a byte a otro del mismo vendedor
+ *                 (un lote que llegó dos veces con otro nombre, ver {@link ConsolidacionVentas}).
+ *  --vigilar      no termina: vigila data/ventas y los catálogos y reescribe los reportes
+ *                 (de forma atómica) segundos después de cada cambio (ver {@link VigilanciaVentas}).
+ *  --espera-ms=N  en modo --vigilar, milisegundos sin cambios antes de reescribir (por defecto 500).
+ *  --top=N        cada reporte sólo trae sus N primeras filas (selección con montículo acotado).
+ *  --metricas=DIR carpeta donde se escriben metricas.json y metricas.prom (por defecto data/):
+ *                 tiempo por fase, tasas, latencia por archivo y rechazos (ver {@link Metricas}).
+ *  --log=RUTA     bitácora INFO/WARN/ERROR (por defecto data/log.txt, ver {@link Bitacora}). Los
+ *                 rechazos de cada archivo de ventas se registran como un solo resumen con ejemplos.
+ *  --comprimir    escribe los reportes comprimidos con gzip (reporte_*.csv.gz).
+ *  --binario      además de los CSV escribe reporte_vendedores.bin y reporte_productos.bin, mismas
+ *                 filas en formato columnar para mapear y leer por posición (ver {@link ReporteColumnar}).
+ *  --catalogo=X   almacenamiento de los catálogos: "memoria" (por defecto, objetos en el heap) o
+ *                 "columnar" (columnas fuera del heap, ver {@link CatalogoColumnar}).
+ *
+ * Los archivos de ventas pueden venir comprimidos con gzip (*.csv.gz, o detectados por sus bytes
+ * mágicos): se descomprimen al vuelo en otro hilo (ver {@link ArchivosComprimidos}).
+ *
  * No solicita datos al usuario. Muestra mensajes de éxito o error.
  * Java 8.
  */
 public class Main {
 
     // --- Rutas de trabajo (idénticas a Entrega 1) ---
-    private static final Path BASE_DIR = Paths.get("data");
-    private static final Path PRODUCTOS_FILE = BASE_DIR.resolve("productos.csv");
-    private static final Path VENDEDORES_FILE = BASE_DIR.resolve("vendedores.csv");
-    private static final Path VENTAS_DIR = BASE_DIR.resolve("ventas");
+    static final Path BASE_DIR = Paths.get("data");
+    static final Path PRODUCTOS_FILE = BASE_DIR.resolve("productos.csv");
+    static final Path VENDEDORES_FILE = BASE_DIR.resolve("vendedores.csv");
+    static final Path VENTAS_DIR = BASE_DIR.resolve("ventas");
+
+    static final Path REPORTE_VENDEDORES = BASE_DIR.resolve("reporte_vendedores.csv");
+    static final Path REPORTE_PRODUCTOS = BASE_DIR.resolve("reporte_productos.csv");
+    static final Path REPORTE_VENDEDORES_BIN = BASE_DIR.resolve("reporte_vendedores.bin");
+    static final Path REPORTE_PRODUCTOS_BIN = BASE_DIR.resolve("reporte_productos.bin");
+
+    static final Path INSTANTANEA_FILE = BASE_DIR.resolve("catalogos.bin");
+    private static final Path MANIFIESTO_FILE = BASE_DIR.resolve(".incremental").resolve("manifiesto.bin");
 
-    private static final Path REPORTE_VENDEDORES = BASE_DIR.resolve("reporte_vendedores.csv");
-    private static final Path REPORTE_PRODUCTOS = BASE_DIR.resolve("reporte_productos.csv");
+    /** Particiones temporales del modo externo (se borran al terminar). */
+    private static final Path EXTERNO_DIR = BASE_DIR.resolve(".externo");
+
+    static final Path LOG_FILE = BASE_DIR.resolve("log.txt");
+
+    private static final String METRICAS_JSON = "metricas.json";
+    private static final String METRICAS_PROM = "metricas.prom";
 
     // --- Separador y números ---
     private static final String SEP = ";";
-    private static final RoundingMode MONEY_RM = RoundingMode.HALF_UP;
-    private static final int MONEY_SCALE = 2;
+    private static final String REPORTES_GENERADOS = "✅ Reportes generados en: " + BASE_DIR.toAbsolutePath();
+    static final RoundingMode MONEY_RM = RoundingMode.HALF_UP;
+    static final int MONEY_SCALE = 2;
 
     public static void main(String[] args) {
         try {
-            // 1) Cargar catálogos
-            Map<String, Producto> productos = cargarProductos(PRODUCTOS_FILE);
-            Map<String, Vendedor> vendedores = cargarVendedores(VENDEDORES_FILE);
+            Opciones op = Opciones.parsear(args, "hilos", "lector", "tramo-mb", "incremental", "anexos", "consolidar",
+                    "vigilar", "espera-ms", "top", "externo", "memoria-mb", "particiones", "fragmento", "fusionar",
+                    "corrida", "parciales", "metricas", "log", "catalogo", "comprimir", "binario");
+            int hilos = op.entero("hilos", 1);
+            if (hilos == 0) hilos = Runtime.getRuntime().availableProcessors();
+            if (hilos < 0) throw new IllegalArgumentException("--hilos no puede ser negativo: " + hilos);
+            String motor = op.texto("lector", "flujo");
+            int top = op.entero("top", 0);
+            if (top < 0) throw new IllegalArgumentException("--top no puede ser negativo: " + top);
+            boolean comprimir = op.bandera("comprimir");
+            boolean binario = op.bandera("binario");
+            boolean columnar = catalogoColumnar(op);
+            boolean consolidar = op.bandera("consolidar");
+
+            boolean anexos = op.bandera("anexos");
+            boolean incremental = op.bandera("incremental") || anexos;
+            boolean fusionar = op.bandera("fusionar");
+            int[] fragmento = op.tiene("fragmento") ? ProcesamientoFragmentado.parsearFragmento(op.texto("fragmento", "")) : null;
+            int modos = (op.bandera("vigilar") ? 1 : 0) + (op.bandera("externo") ? 1 : 0) + (incremental ? 1 : 0)
+                    + (fragmento != null ? 1 : 0) + (fusionar ? 1 : 0);
+            if (modos > 1) {
+                throw new IllegalArgumentException("--vigilar, --externo, --incremental, --fragmento y --fusionar no se combinan");
+            }
+            if (binario && op.bandera("externo")) {
+                throw new IllegalArgumentException("--binario no se combina con --externo (el reporte binario se arma en memoria)");
+            }
+            Path dirParciales = Paths.get(op.texto("parciales", ProcesamientoFragmentado.PARCIALES_DIR.toString()));
+            if (op.tiene("corrida") && fragmento == null && !fusionar) {
+                throw new IllegalArgumentException("--corrida sólo se usa con --fragmento o --fusionar");
+            }
+            if (op.tiene("corrida") && op.texto("corrida", "").trim().isEmpty()) {
+                throw new IllegalArgumentException("--corrida no puede estar vacío");
+            }
+
+            // Cada trabajador de --fragmento deja sus métricas aparte para no pisar las de los demás
+            Path dirMetricas = Paths.get(op.texto("metricas", fragmento == null ? BASE_DIR.toString()
+                    : dirParciales.resolve("metricas-" + fragmento[0] + "-de-" + fragmento[1]).toString()));
+            Metricas metricas = new Metricas();
+            Bitacora.iniciar(Paths.get(op.texto("log", LOG_FILE.toString())));
+
+            if (op.bandera("vigilar")) {
+                new VigilanciaVentas(motor, op.entero("espera-ms", 500), top, comprimir, binario, columnar,
+                        consolidar, metricas, dirMetricas).ejecutar();
+                return;
+            }
+
+            if (op.bandera("externo")) {
+                // Catálogos y acumulados particionados en disco: memoria acotada por --memoria-mb
+                ProcesamientoExterno.ejecutar(PRODUCTOS_FILE, VENDEDORES_FILE, VENTAS_DIR, EXTERNO_DIR, top,
+                        op.entero("memoria-mb", 256), op.entero("particiones", 0), comprimir, consolidar, metricas);
+                terminar(metricas, dirMetricas, REPORTES_GENERADOS);
+                return;
+            }
+
+            // 1) Cargar catálogos (desde la instantánea binaria si está al día con los CSV)
+            long t0 = System.nanoTime();
+            InstantaneaCatalogos catalogos = InstantaneaCatalogos.cargar(PRODUCTOS_FILE, VENDEDORES_FILE, INSTANTANEA_FILE,
+                    columnar);
+            Catalogo<Producto> productos = catalogos.productos;
+            Catalogo<Vendedor> vendedores = catalogos.vendedores;
+            metricas.fase("catalogos", System.nanoTime() - t0);
 
             // 2) Recorrer archivos de ventas y acumular resultados
-            Resultados acumulados = procesarVentas(VENTAS_DIR, productos, vendedores);
+            t0 = System.nanoTime();
+            Resultados acumulados;
+            if (fusionar) {
+                // ... o sumar los parciales que dejaron los trabajadores de --fragmento
+                acumulados = ProcesamientoFragmentado.fusionar(ProcesamientoFragmentado.listarParciales(dirParciales),
+                        corrida(op), HuellaContenido.calcular(PRODUCTOS_FILE, VENDEDORES_FILE), productos, vendedores);
+                metricas.fase("fusion", System.nanoTime() - t0);
+            } else {
+                LectorVentas lector = instrumentar(crearLector(motor, productos, vendedores, hilos,
+                        op.entero("tramo-mb", LectorVentasPorTramos.TRAMO_MB_POR_DEFECTO)), metricas);
+                List<Path> archivos = listarArchivosVenta(VENTAS_DIR, consolidar);
+                if (fragmento != null) archivos = ProcesamientoFragmentado.seleccionar(archivos, fragmento[0], fragmento[1]);
+                acumulados = incremental
+                        ? ProcesamientoIncremental.procesar(archivos, MANIFIESTO_FILE,
+                                HuellaContenido.calcular(PRODUCTOS_FILE, VENDEDORES_FILE),
+                                lector, productos, vendedores, hilos, anexos, metricas)
+                        : procesarVentas(archivos, lector, productos, vendedores, hilos);
+                metricas.fase("ventas", System.nanoTime() - t0);
+
+                if (fragmento != null) {
+                    // Trabajador: sin reportes, sólo el parcial que luego suma --fusionar
+                    Path parcial = ProcesamientoFragmentado.archivoParcial(dirParciales, fragmento[0], fragmento[1]);
+                    ProcesamientoFragmentado.escribirParcial(parcial,
+                            HuellaContenido.calcular(PRODUCTOS_FILE, VENDEDORES_FILE), corrida(op),
+                            fragmento[0], fragmento[1], archivos.size(), acumulados);
+                    terminar(metricas, dirMetricas, "✅ Parcial del fragmento " + fragmento[0] + "/" + fragmento[1]
+                            + " (" + archivos.size() + " archivo(s)) en: " + parcial.toAbsolutePath());
+                    return;
+                }
+            }
 
             // 3) Escribir reportes ordenados
-            escribirReporteVendedores(REPORTE_VENDEDORES, acumulados.totalPorVendedor, vendedores);
-            escribirReporteProductos(REPORTE_PRODUCTOS, acumulados.cantidadPorProducto, productos);
+            t0 = System.nanoTime();
+            escribirReportes(acumulados, top, comprimir, binario);
+            metricas.fase("reportes", System.nanoTime() - t0);
 
-            System.out.println("✅ Reportes generados en: " + BASE_DIR.toAbsolutePath());
+            terminar(metricas, dirMetricas, REPORTES_GENERADOS);
         } catch (Exception ex) {
-            System.err.println("❌ Error al ejecutar Main: " + ex.getMessage());
+            Bitacora.error("Error al ejecutar Main: " + ex.getMessage());
+            Bitacora.cerrar();
             ex.printStackTrace();
+        } finally {
+            Bitacora.cerrar();
         }
     }
 
+    /** --catalogo=memoria|columnar (true = columnar). */
+    static boolean catalogoColumnar(Opciones op) {
+        String tipo = op.texto("catalogo", "memoria");
+        switch (tipo) {
+            case "memoria":
+                return false;
+            case "columnar":
+                return true;
+            default:
+                throw new IllegalArgumentException("--catalogo desconocido: " + tipo + " (use memoria o columnar)");
+        }
+    }
+
+    private static void terminar(Metricas metricas, Path dirMetricas, String mensaje) throws IOException {
+        exportarMetricas(metricas, dirMetricas);
+        Bitacora.info(metricas.archivos() + " archivo(s), " + metricas.lineas()
+                + " línea(s) leídas; métricas en " + dirMetricas.resolve(METRICAS_JSON).toAbsolutePath());
+        Bitacora.cerrar();
+        System.out.println(mensaje);
+    }
+
+    /**
+     * Envuelve un motor de lectura: por cada archivo reinicia su diagnóstico, lo mide en las
+     * métricas y deja en la bitácora UN resumen de sus rechazos (conteo por motivo y ejemplos),
+     * en vez de una advertencia por línea.
+     */
+    static LectorVentas instrumentar(LectorVentas lector, Metricas metricas) {
+        return (archivo, res) -> {
+            res.iniciarArchivo();
+            long t0 = System.nanoTime();
+            lector.procesar(archivo, res);
+            metricas.registrarArchivo(System.nanoTime() - t0, res);
+
+            String resumen = res.resumenRechazos(archivo);
+            if (resumen != null) Bitacora.warn(resumen);
+        };
+    }
+
+    /** data/metricas.json y data/metricas.prom (o la carpeta de --metricas). */
+    static void exportarMetricas(Metricas metricas, Path dir) throws IOException {
+        metricas.exportar(dir.resolve(METRICAS_JSON), dir.resolve(METRICAS_PROM));
+    }
+
     // =========================================================================================
     // Lectura de entradas
     // =========================================================================================
 
-    private static Map<String, Producto> cargarProductos(Path file) throws IOException {
-        Map<String, Producto> out = new HashMap<>();
+    /** Carga productos.csv asignando a cada producto un ordinal denso (orden de carga). */
+    static Catalogo<Producto> cargarProductos(Path file) throws IOException {
+        return cargarProductos(file, new CatalogoEnMemoria<>());
+    }
+
+    /** Igual, pero en el catálogo dado (p. ej. uno columnar, ver {@link CatalogoColumnar}). */
+    static Catalogo<Producto> cargarProductos(Path file, Catalogo<Producto> out) throws IOException {
         try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
             String line;
             while ((line = br.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue;
-
-                String[] parts = line.split(";");
-                if (parts.length < 3) {
-                    System.err.println("⚠️  Línea inválida en productos: " + line);
-                    continue;
-                }
-                String id = parts[0].trim();
-                String nombre = parts[1].trim();
-                BigDecimal precio;
-                try {
-                    precio = new BigDecimal(parts[2].trim()).setScale(MONEY_SCALE, MONEY_RM);
-                } catch (NumberFormatException nfe) {
-                    System.err.println("⚠️  Precio inválido para producto " + id + ": " + parts[2]);
-                    continue;
-                }
-                if (precio.signum() < 0) {
-                    System.err.println("⚠️  Precio negativo ignorado para producto " + id);
-                    continue;
-                }
-                out.put(id, new Producto(id, nombre, precio));
+                Producto p = parsearProducto(line);
+                if (p != null) out.agregar(p.getId(), p);
             }
         }
         return out;
     }
 
-    private static Map<String, Vendedor> cargarVendedores(Path file) throws IOException {
-        Map<String, Vendedor> out = new HashMap<>();
+    /**
+     * Una línea de productos.csv (ID;Nombre;Precio). Devuelve null, con advertencia en la bitácora,
+     * si está en blanco o no es válida. Compartido con el modo externo ({@link ProcesamientoExterno}).
+     */
+    static Producto parsearProducto(String line) {
+        line = line.trim();
+        if (line.isEmpty()) return null;
+
+        String[] parts = line.split(";");
+        if (parts.length < 3) {
+            Bitacora.warn("Línea inválida en productos: " + line);
+            return null;
+        }
+        String id = parts[0].trim();
+        String nombre = parts[1].trim();
+        BigDecimal precio;
+        try {
+            precio = new BigDecimal(parts[2].trim()).setScale(MONEY_SCALE, MONEY_RM);
+        } catch (NumberFormatException nfe) {
+            Bitacora.warn("Precio inválido para producto " + id + ": " + parts[2]);
+            return null;
+        }
+        if (precio.signum() < 0) {
+            Bitacora.warn("Precio negativo ignorado para producto " + id);
+            return null;
+        }
+        Producto p = new Producto(id, nombre, precio);
+        if (!p.tienePrecioEnCentavos()) {
+            Bitacora.warn("Precio fuera de rango ignorado para producto " + id + ": " + parts[2]);
+            return null;
+        }
+        return p;
+    }
+
+    /** Carga vendedores.csv asignando a cada vendedor un ordinal denso (orden de carga). */
+    static Catalogo<Vendedor> cargarVendedores(Path file) throws IOException {
+        return cargarVendedores(file, new CatalogoEnMemoria<>());
+    }
+
+    static Catalogo<Vendedor> cargarVendedores(Path file, Catalogo<Vendedor> out) throws IOException {
         try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
             String line;
             while ((line = br.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue;
-
-                String[] parts = line.split(";");
-                if (parts.length < 4) {
-                    System.err.println("⚠️  Línea inválida en vendedores: " + line);
-                    continue;
-                }
-                String tipo = parts[0].trim();
-                String num = parts[1].trim();
-                String nombres = parts[2].trim();
-                String apellidos = parts[3].trim();
-
-                Vendedor v = new Vendedor(tipo, num, nombres, apellidos);
-                out.put(claveVendedor(tipo, num), v);
+                Vendedor v = parsearVendedor(line);
+                if (v != null) out.agregar(claveVendedor(v.getTipoDocumento(), v.getNumeroDocumento()), v);
             }
         }
         return out;
     }
 
+    /** Una línea de vendedores.csv (TipoDoc;NumeroDoc;Nombres;Apellidos), o null si no es válida. */
+    static Vendedor parsearVendedor(String line) {
+        line = line.trim();
+        if (line.isEmpty()) return null;
+
+        String[] parts = line.split(";");
+        if (parts.length < 4) {
+            Bitacora.warn("Línea inválida en vendedores: " + line);
+            return null;
+        }
+        String tipo = parts[0].trim();
+        String num = parts[1].trim();
+        String nombres = parts[2].trim();
+        String apellidos = parts[3].trim();
+        return new Vendedor(tipo, num, nombres, apellidos);
+    }
+
     // =========================================================================================
     // Procesamiento de ventas
     // =========================================================================================
 
-    private static class Resultados {
-        final Map<String, BigDecimal> totalPorVendedor = new HashMap<>(); // clave vendedor -> dinero
-        final Map<String, Integer> cantidadPorProducto = new HashMap<>(); // id producto -> cantidad
+    /** Motor que lee UN archivo de ventas y acumula sus líneas válidas en un Resultados. */
+    interface LectorVentas {
+        void procesar(Path archivo, Resultados res) throws IOException;
     }
 
-    private static Resultados procesarVentas(Path ventasDir,
-                                             Map<String, Producto> productos,
-                                             Map<String, Vendedor> vendedores) throws IOException {
+    /**
+     * Con hilos > 1, los archivos grandes además se leen por tramos en paralelo
+     * ({@link LectorVentasPorTramos}); los de menos de dos tramos van directo al motor elegido.
+     */
+    static LectorVentas crearLector(String motor,
+                                    Catalogo<Producto> productos,
+                                    Catalogo<Vendedor> vendedores,
+                                    int hilos, int tramoMb) {
+        LectorVentas lector = crearLector(motor, productos, vendedores);
+        return hilos > 1 ? new LectorVentasPorTramos(lector, productos, vendedores, hilos, tramoMb) : lector;
+    }
 
-        Resultados res = new Resultados();
+    static LectorVentas crearLector(String motor,
+                                    Catalogo<Producto> productos,
+                                    Catalogo<Vendedor> vendedores) {
+        switch (motor) {
+            case "flujo":
+                return (archivo, res) -> procesarArchivoVenta(archivo, productos, vendedores, res);
+            case "mapeado":
+                return new LectorVentasMapeado(productos, vendedores);
+            default:
+                throw new IllegalArgumentException("--lector desconocido: " + motor + " (use flujo o mapeado)");
+        }
+    }
 
-        if (!Files.isDirectory(ventasDir)) {
-            System.err.println("⚠️  La carpeta de ventas no existe: " + ventasDir.toAbsolutePath());
+    private static Resultados procesarVentas(List<Path> archivos,
+                                             LectorVentas lector,
+                                             Catalogo<Producto> productos,
+                                             Catalogo<Vendedor> vendedores,
+                                             int hilos) throws IOException {
+
+        Resultados res = new Resultados(productos, vendedores);
+
+        if (hilos <= 1 || archivos.size() <= 1) {
+            for (Path archivo : archivos) {
+                lector.procesar(archivo, res);
+            }
             return res;
         }
+        return procesarVentasEnParalelo(archivos, lector, productos, vendedores, Math.min(hilos, archivos.size()));
+    }
+
+    /** --corrida, o el identificador que cada trabajador y la fusión calculan de la carpeta de ventas. */
+    private static String corrida(Opciones op) throws IOException {
+        if (op.tiene("corrida")) return op.texto("corrida", "").trim();
+        return ProcesamientoFragmentado.identificadorCorrida(listarArchivosVenta(VENTAS_DIR));
+    }
+
+    /** Archivos *.csv y *.csv.gz de la carpeta de ventas (lista vacía, con aviso, si la carpeta no existe). */
+    static List<Path> listarArchivosVenta(Path ventasDir) throws IOException {
+        List<Path> archivos = new ArrayList<>();
+        if (!Files.isDirectory(ventasDir)) {
+            Bitacora.warn("La carpeta de ventas no existe: " + ventasDir.toAbsolutePath());
+            return archivos;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(ventasDir, "*.{csv,csv.gz}")) {
+            for (Path archivo : stream) archivos.add(archivo);
+        }
+        return archivos;
+    }
 
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(ventasDir, "*.csv")) {
-            for (Path archivo : stream) {
-                procesarArchivoVenta(archivo, productos, vendedores, res);
+    /** Igual, y con 'consolidar' sin los duplicados exactos de otro archivo del mismo vendedor. */
+    static List<Path> listarArchivosVenta(Path ventasDir, boolean consolidar) throws IOException {
+        List<Path> archivos = listarArchivosVenta(ventasDir);
+        return consolidar ? ConsolidacionVentas.consolidar(archivos) : archivos;
+    }
+
+    /**
+     * Modo paralelo: cada hilo toma archivos de una cola compartida (índice atómico) y acumula
+     * en su PROPIO Resultados, sin sincronización por línea. Al final se fusionan los parciales.
+     * La suma en centavos es exacta y los reportes se ordenan con desempate por clave,
+     * así que el orden de fusión no altera la salida.
+     */
+    private static Resultados procesarVentasEnParalelo(List<Path> archivos,
+                                                       LectorVentas lector,
+                                                       Catalogo<Producto> productos,
+                                                       Catalogo<Vendedor> vendedores,
+                                                       int hilos) throws IOException {
+        AtomicInteger siguiente = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<Resultados>> parciales = new ArrayList<>(hilos);
+            for (int h = 0; h < hilos; h++) {
+                parciales.add(pool.submit(() -> {
+                    Resultados parcial = new Resultados(productos, vendedores);
+                    int i;
+                    while ((i = siguiente.getAndIncrement()) < archivos.size()) {
+                        lector.procesar(archivos.get(i), parcial);
+                    }
+                    return parcial;
+                }));
             }
+
+            Resultados res = new Resultados(productos, vendedores);
+            for (Future<Resultados> f : parciales) {
+                res.fusionar(esperar(f));
+            }
+            return res;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    static <T> T esperar(Future<T> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Procesamiento de ventas interrumpido");
+        } catch (ExecutionException ee) {
+            Throwable causa = ee.getCause();
+            if (causa instanceof IOException) throw (IOException) causa;
+            if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+            if (causa instanceof Error) throw (Error) causa;
+            throw new IOException(causa);
         }
-        return res;
     }
 
-    private static void procesarArchivoVenta(Path archivo,
-                                             Map<String, Producto> productos,
-                                             Map<String, Vendedor> vendedores,
+    static void procesarArchivoVenta(Path archivo,
+                                             Catalogo<Producto> productos,
+                                             Catalogo<Vendedor> vendedores,
                                              Resultados res) throws IOException {
-        List<String> lineas = Files.readAllLines(archivo, StandardCharsets.UTF_8);
-        if (lineas.isEmpty()) {
-            System.err.println("⚠️  Archivo de ventas vacío: " + archivo.getFileName());
-            return;
+        // Lectura en flujo: sólo hay una línea en memoria a la vez, así que el consumo
+        // no depende del tamaño del archivo (antes se cargaba todo con readAllLines).
+        // Un .csv.gz se descomprime en otro hilo mientras aquí se interpretan las líneas.
+        try (BufferedReader br = ArchivosComprimidos.nuevoLector(archivo, res)) {
+            procesarLineasVenta(br, productos, vendedores, res);
         }
+    }
 
-        // Cabecera: TipoDoc;NumeroDoc
-        String cab = lineas.get(0).trim();
-        String[] head = cab.split(";");
-        if (head.length < 2) {
-            System.err.println("⚠️  Cabecera inválida en " + archivo.getFileName() + ": " + cab);
+    private static void procesarLineasVenta(BufferedReader br,
+                                            Catalogo<Producto> productos,
+                                            Catalogo<Vendedor> vendedores,
+                                            Resultados res) throws IOException {
+        String primera = br.readLine();
+        if (primera == null) {
+            res.rechazar(MotivoRechazo.ARCHIVO_VACIO, null);
             return;
         }
-        String tipo = head[0].trim();
-        String num = head[1].trim();
-        String claveVend = claveVendedor(tipo, num);
+        res.lineasArchivo++;
 
-        if (!vendedores.containsKey(claveVend)) {
-            System.err.println("⚠️  Vendedor no encontrado para " + claveVend + " en " + archivo.getFileName());
-            // Continuamos igual: registramos dinero en esa clave “desconocida”
-        }
+        String claveVend = leerCabecera(primera, vendedores, res);
+        if (claveVend == null) return;
+        int ordVend = vendedores.ordinal(claveVend); // -1: vendedor desconocido
 
         // Ventas: ID;Cantidad;  (toleramos ; final)
-        for (int i = 1; i < lineas.size(); i++) {
-            String ln = lineas.get(i).trim();
+        String linea;
+        while ((linea = br.readLine()) != null) {
+            String ln = linea.trim();
             if (ln.isEmpty()) continue;
+            res.lineasArchivo++;
 
             // Si termina en ';' lo quitamos para dividir limpio
             if (ln.endsWith(SEP)) ln = ln.substring(0, ln.length() - 1);
 
             String[] parts = ln.split(";");
             if (parts.length < 2) {
-                System.err.println("⚠️  Línea de venta inválida en " + archivo.getFileName() + ": " + lineas.get(i));
+                res.rechazar(MotivoRechazo.LINEA_INVALIDA, linea);
                 continue;
             }
             String idProd = parts[0].trim();
             String cantStr = parts[1].trim();
 
-            Producto p = productos.get(idProd);
-            if (p == null) {
-                System.err.println("⚠️  IDProducto inexistente (" + idProd + ") en " + archivo.getFileName());
+            int ordProd = productos.ordinal(idProd);
+            if (ordProd < 0) {
+                res.rechazar(MotivoRechazo.PRODUCTO_DESCONOCIDO, idProd);
                 continue; // extra de validación
             }
             int cantidad;
             try {
                 cantidad = Integer.parseInt(cantStr);
             } catch (NumberFormatException nfe) {
-                System.err.println("⚠️  Cantidad inválida (" + cantStr + ") en " + archivo.getFileName());
+                res.rechazar(MotivoRechazo.CANTIDAD_INVALIDA, cantStr);
                 continue;
             }
             if (cantidad <= 0) {
-                System.err.println("⚠️  Cantidad no positiva (" + cantidad + ") en " + archivo.getFileName());
+                res.rechazar(MotivoRechazo.CANTIDAD_INVALIDA, cantStr);
                 continue;
             }
 
-            // Acumular dinero por vendedor
-            BigDecimal subtotal = p.getPrecioUnitario().multiply(BigDecimal.valueOf(cantidad))
-                    .setScale(MONEY_SCALE, MONEY_RM);
-            res.totalPorVendedor.merge(claveVend, subtotal, BigDecimal::add);
+            res.registrarVenta(ordVend, claveVend, ordProd, cantidad);
+        }
+    }
+
+    /**
+     * Cabecera: TipoDoc;NumeroDoc. Devuelve la clave del vendedor, o null si la cabecera es inválida
+     * (en cuyo caso el archivo completo se ignora). Compartido por todos los motores de lectura.
+     */
+    static String leerCabecera(String primera, Catalogo<Vendedor> vendedores, Resultados res) {
+        String claveVend = claveCabecera(primera, res);
+        if (claveVend == null) return null;
 
-            // Acumular cantidad por producto
-            res.cantidadPorProducto.merge(idProd, cantidad, Integer::sum);
+        if (!vendedores.contiene(claveVend)) {
+            res.rechazar(MotivoRechazo.VENDEDOR_DESCONOCIDO, claveVend);
+            // Continuamos igual: registramos dinero en esa clave “desconocida”
+        }
+        return claveVend;
+    }
+
+    /** Sólo el formato de la cabecera (sin consultar el catálogo): clave TipoDoc;NumeroDoc o null. */
+    static String claveCabecera(String primera, Resultados res) {
+        String cab = primera.trim();
+        String[] head = cab.split(";");
+        if (head.length < 2) {
+            res.rechazar(MotivoRechazo.CABECERA_INVALIDA, cab);
+            return null;
         }
+        return claveVendedor(head[0].trim(), head[1].trim());
     }
 
     // =========================================================================================
     // Escritura de reportes
     // =========================================================================================
 
-    private static void escribirReporteVendedores(Path outFile,
-                                                  Map<String, BigDecimal> totalPorVendedor,
-                                                  Map<String, Vendedor> vendedores) throws IOException {
+    /**
+     * Escribe ambos reportes; cada uno se reemplaza de forma atómica (temporal + renombrado).
+     * top = 0 escribe todas las filas; top = N sólo las N primeras de cada reporte.
+     * comprimir = true los deja en reporte_*.csv.gz (gzip) y borra el reporte_*.csv de una corrida
+     * anterior (y al revés), para que no quede un reporte viejo al lado. binario = true escribe además
+     * las mismas filas en reporte_*.bin (ver {@link ReporteColumnar}; el orden se calcula una sola
+     * vez); sin él se borran los .bin de una corrida anterior, que ya no corresponderían a los CSV.
+     */
+    static void escribirReportes(Resultados res, int top, boolean comprimir, boolean binario) throws IOException {
+        RankingVendedores ranking = new RankingVendedores(res);
+        int[] vendedores = ranking.ordenar(top);
+        EscrituraAtomica.reemplazar(reporte(REPORTE_VENDEDORES, comprimir),
+                tmp -> escribirReporteVendedores(tmp, ranking, vendedores, comprimir));
+        borrarOtraVariante(REPORTE_VENDEDORES, comprimir);
+        if (binario) {
+            EscrituraAtomica.reemplazar(REPORTE_VENDEDORES_BIN,
+                    tmp -> escribirReporteVendedoresColumnar(tmp, ranking, vendedores));
+        } else {
+            Files.deleteIfExists(REPORTE_VENDEDORES_BIN);
+        }
+        int[] productos = rankingProductos(res, top);
+        EscrituraAtomica.reemplazar(reporte(REPORTE_PRODUCTOS, comprimir),
+                tmp -> escribirReporteProductos(tmp, res, productos, comprimir));
+        borrarOtraVariante(REPORTE_PRODUCTOS, comprimir);
+        if (binario) {
+            EscrituraAtomica.reemplazar(REPORTE_PRODUCTOS_BIN,
+                    tmp -> escribirReporteProductosColumnar(tmp, res, productos));
+        } else {
+            Files.deleteIfExists(REPORTE_PRODUCTOS_BIN);
+        }
+    }
+
+    /** Ruta final de un reporte: la de siempre, o con ".gz" si va comprimido. */
+    static Path reporte(Path reporte, boolean comprimir) {
+        return ArchivosComprimidos.variante(reporte, comprimir);
+    }
+
+    /** Borra el reporte de la otra variante (comprimido o no), ya reemplazado el de esta corrida. */
+    static void borrarOtraVariante(Path reporte, boolean comprimir) throws IOException {
+        Files.deleteIfExists(reporte(reporte, !comprimir));
+    }
+
+    /**
+     * Vendedores con ventas, vistos como índices int: i >= 0 es el ordinal en el catálogo y
+     * i < 0 es el desconocido número (-1 - i). Orden: total desc y, a igualdad, clave asc
+     * (orden total, así que secuencial y paralelo producen el mismo archivo).
+     */
+    static final class RankingVendedores {
+        final Resultados res;
+        private final String[] clavesDesconocidos;
+        private final long[] centavosDesconocidos;
+
+        RankingVendedores(Resultados res) {
+            this.res = res;
+            int n = res.centavosVendedorDesconocido.size();
+            clavesDesconocidos = new String[n];
+            centavosDesconocidos = new long[n];
+            int i = 0;
+            for (Map.Entry<String, long[]> e : res.centavosVendedorDesconocido.entrySet()) {
+                clavesDesconocidos[i] = e.getKey();
+                centavosDesconocidos[i++] = e.getValue()[0];
+            }
+        }
+
+        long centavos(int i) {
+            return i >= 0 ? res.centavosPorVendedor[i] : centavosDesconocidos[-1 - i];
+        }
+
+        String clave(int i) {
+            return i >= 0 ? res.vendedores.clave(i) : clavesDesconocidos[-1 - i];
+        }
+
+        /** null si el vendedor no está en vendedores.csv. */
+        Vendedor vendedor(int i) {
+            return i >= 0 ? res.vendedores.get(i) : null;
+        }
+
+        int comparar(int a, int b) {
+            int c = Long.compare(centavos(b), centavos(a));
+            return c != 0 ? c : clave(a).compareTo(clave(b)); // desempate determinista
+        }
+
+        /** Los 'top' primeros (0 = todos), ya ordenados. */
+        int[] ordenar(int top) {
+            SeleccionTopK sel = new SeleccionTopK(top > 0 ? top : Integer.MAX_VALUE, this::comparar);
+            for (int v = 0; v < res.centavosPorVendedor.length; v++) {
+                if (res.vendedorConVentas[v]) sel.ofrecer(v);
+            }
+            for (int i = 0; i < clavesDesconocidos.length; i++) sel.ofrecer(-1 - i);
+            return sel.ordenados();
+        }
+    }
+
+    /** Ordinales de productos vendidos: cantidad desc y, a igualdad, ID asc. top = 0 devuelve todos. */
+    static int[] rankingProductos(Resultados res, int top) {
+        int[] cant = res.cantidadPorProducto;
+        SeleccionTopK sel = new SeleccionTopK(top > 0 ? top : Integer.MAX_VALUE, (a, b) -> {
+            int c = Integer.compare(cant[b], cant[a]);
+            return c != 0 ? c : res.productos.clave(a).compareTo(res.productos.clave(b)); // desempate determinista
+        });
+        for (int p = 0; p < cant.length; p++) {
+            if (cant[p] > 0) sel.ofrecer(p);
+        }
+        return sel.ordenados();
+    }
+
+    static void escribirReporteVendedores(Path outFile, Resultados res, int top) throws IOException {
+        escribirReporteVendedores(outFile, res, top, false);
+    }
+
+    static void escribirReporteVendedores(Path outFile, Resultados res, int top, boolean comprimir) throws IOException {
+        RankingVendedores ranking = new RankingVendedores(res);
+        escribirReporteVendedores(outFile, ranking, ranking.ordenar(top), comprimir);
+    }
 
-        List<Map.Entry<String, BigDecimal>> ordenado = totalPorVendedor.entrySet()
-                .stream()
-                .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
-                .collect(Collectors.toList());
+    static void escribirReporteVendedores(Path outFile, RankingVendedores ranking, int[] ordenado,
+                                          boolean comprimir) throws IOException {
+        char[] num = new char[24]; // búfer reutilizable para formatear números
 
-        try (BufferedWriter bw = Files.newBufferedWriter(outFile, StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        try (BufferedWriter bw = nuevoEscritorReporte(outFile, comprimir)) {
 
             // (Opcional) BOM para Excel:
             bw.write('\uFEFF');
@@ -245,32 +687,35 @@ public class Main {
             // Encabezado (opcional, no exigido por el enunciado):
             // bw.write("NombreCompleto;TotalRecaudado"); bw.newLine();
 
-            for (Map.Entry<String, BigDecimal> e : ordenado) {
-                String clave = e.getKey();
-                BigDecimal total = e.getValue().setScale(MONEY_SCALE, MONEY_RM);
-
-                Vendedor v = vendedores.get(clave);
-                String nombreCompleto = (v == null)
-                        ? clave // fallback: "CC;123..."
-                        : (v.getNombres() + " " + v.getApellidos());
-
-                bw.write(nombreCompleto + SEP + total.toPlainString());
+            // Cada fila se vuelca por partes al búfer del writer: sin concatenar Strings ni crear BigDecimal
+            for (int i : ordenado) {
+                Vendedor v = ranking.vendedor(i);
+                if (v == null) {
+                    bw.write(ranking.clave(i)); // fallback: "CC;123..."
+                } else {
+                    bw.write(v.getNombres());
+                    bw.write(' ');
+                    bw.write(v.getApellidos());
+                }
+                bw.write(SEP);
+                escribirCentavos(bw, ranking.centavos(i), num);
                 bw.newLine();
             }
         }
     }
 
-    private static void escribirReporteProductos(Path outFile,
-                                                 Map<String, Integer> cantidadPorProducto,
-                                                 Map<String, Producto> productos) throws IOException {
+    static void escribirReporteProductos(Path outFile, Resultados res, int top) throws IOException {
+        escribirReporteProductos(outFile, res, top, false);
+    }
+
+    static void escribirReporteProductos(Path outFile, Resultados res, int top, boolean comprimir) throws IOException {
+        escribirReporteProductos(outFile, res, rankingProductos(res, top), comprimir);
+    }
 
-        List<Map.Entry<String, Integer>> ordenado = cantidadPorProducto.entrySet()
-                .stream()
-                .sorted((a, b) -> Integer.compare(b.getValue(), a.getValue()))
-                .collect(Collectors.toList());
+    static void escribirReporteProductos(Path outFile, Resultados res, int[] ordenado, boolean comprimir) throws IOException {
+        char[] num = new char[24]; // búfer reutilizable para formatear números
 
-        try (BufferedWriter bw = Files.newBufferedWriter(outFile, StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        try (BufferedWriter bw = nuevoEscritorReporte(outFile, comprimir)) {
 
             // (Opcional) BOM para Excel:
             bw.write('\uFEFF');
@@ -278,29 +723,80 @@ public class Main {
             // Encabezado (opcional):
             // bw.write("NombreProducto;PrecioUnitario;CantidadTotal"); bw.newLine();
 
-            for (Map.Entry<String, Integer> e : ordenado) {
-                String id = e.getKey();
-                int cantidad = e.getValue();
-
-                Producto p = productos.get(id);
-                if (p == null) {
-                    // Esto no debería ocurrir porque validamos antes, pero por seguridad:
-                    System.err.println("⚠️  Producto " + id + " sin datos en catálogo.");
-                    continue;
-                }
-                String precio = p.getPrecioUnitario().setScale(MONEY_SCALE, MONEY_RM).toPlainString();
-
-                bw.write(p.getNombre() + SEP + precio + SEP + cantidad);
+            for (int ord : ordenado) {
+                Producto p = res.productos.get(ord);
+                bw.write(p.getNombre());
+                bw.write(SEP);
+                escribirCentavos(bw, p.getPrecioCentavos(), num);
+                bw.write(SEP);
+                escribirEntero(bw, res.cantidadPorProducto[ord], num);
                 bw.newLine();
             }
         }
     }
 
+    /** Las filas 'ordenado' del reporte de vendedores en formato columnar (mismo texto de nombre que el CSV). */
+    static void escribirReporteVendedoresColumnar(Path outFile, RankingVendedores ranking, int[] ordenado) throws IOException {
+        ReporteColumnar.Escritor out = new ReporteColumnar.Escritor(ReporteColumnar.TIPO_VENDEDORES, ordenado.length);
+        for (int i : ordenado) {
+            Vendedor v = ranking.vendedor(i);
+            out.fila(v == null ? ranking.clave(i) : v.getNombres() + ' ' + v.getApellidos(), ranking.centavos(i), 0);
+        }
+        out.escribir(outFile);
+    }
+
+    static void escribirReporteProductosColumnar(Path outFile, Resultados res, int[] ordenado) throws IOException {
+        ReporteColumnar.Escritor out = new ReporteColumnar.Escritor(ReporteColumnar.TIPO_PRODUCTOS, ordenado.length);
+        for (int ord : ordenado) {
+            Producto p = res.productos.get(ord);
+            out.fila(p.getNombre(), p.getPrecioCentavos(), res.cantidadPorProducto[ord]);
+        }
+        out.escribir(outFile);
+    }
+
+    static BufferedWriter nuevoEscritorReporte(Path outFile, boolean comprimir) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(ArchivosComprimidos.nuevaSalida(Files.newOutputStream(outFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), comprimir), StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /** Escribe centavos con escala 2 (mismo texto que BigDecimal.valueOf(c, 2).toPlainString()). */
+    static void escribirCentavos(Writer w, long centavos, char[] tmp) throws IOException {
+        if (centavos < 0) {
+            w.write(BigDecimal.valueOf(centavos, MONEY_SCALE).toPlainString()); // no ocurre: no hay montos negativos
+            return;
+        }
+        int pos = tmp.length;
+        long v = centavos;
+        tmp[--pos] = (char) ('0' + v % 10);
+        v /= 10;
+        tmp[--pos] = (char) ('0' + v % 10);
+        v /= 10;
+        tmp[--pos] = '.';
+        do {
+            tmp[--pos] = (char) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        w.write(tmp, pos, tmp.length - pos);
+    }
+
+    static void escribirEntero(Writer w, int n, char[] tmp) throws IOException {
+        if (n < 0) {
+            w.write(Integer.toString(n));
+            return;
+        }
+        int pos = tmp.length;
+        do {
+            tmp[--pos] = (char) ('0' + n % 10);
+            n /= 10;
+        } while (n != 0);
+        w.write(tmp, pos, tmp.length - pos);
+    }
+
     // =========================================================================================
     // Utils
     // =========================================================================================
 
-    private static String claveVendedor(String tipo, String num) {
+    static String claveVendedor(String tipo, String num) {
         return (tipo == null ? "" : tipo.trim()) + ";" + (num == null ? "" : num.trim());
     }
 }
@@ -0,0 +1,255 @@
+package edu.poligran.proyecto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de una corrida de {@link Main}: tiempo de cada fase, archivos/líneas/bytes leídos
+ * (y sus tasas), histograma de latencia por archivo y conteo de rechazos por motivo. Los bytes son
+ * los que cada motor leyó de verdad (con --anexos, la cabecera, el prefijo releído para su CRC y
+ * lo nuevo; con gzip, los comprimidos), no el tamaño del archivo.
+ *
+ * La medición por archivo se hace envolviendo el {@link Main.LectorVentas} ({@link Main#instrumentar}):
+ * los motores sólo incrementan el diagnóstico de su propio {@link Resultados} (sin atómicos en la
+ * línea caliente) y al terminar cada archivo se suma aquí. Los contadores globales son LongAdder,
+ * así que los hilos del modo paralelo no compiten por una misma variable.
+ *
+ * Se exportan en dos archivos (ambos con reemplazo atómico):
+ *  - metricas.json: para leer o procesar con herramientas;
+ *  - metricas.prom: formato de texto de Prometheus, pensado para el "textfile collector" del
+ *    node exporter (no se abre ningún puerto).
+ * En modo --vigilar los valores son acumulados desde el arranque (contadores de Prometheus).
+ */
+final class Metricas {
+
+    /** Límites superiores (en segundos) de las cubetas del histograma de latencia por archivo. */
+    private static final double[] LIMITES_SEG = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private final long inicioNanos = System.nanoTime();
+    private final Map<String, Long> fasesNanos = new LinkedHashMap<>(); // en orden de aparición
+
+    private final LongAdder archivos = new LongAdder();
+    private final LongAdder lineas = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder[] rechazos = new LongAdder[MotivoRechazo.values().length];
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(LIMITES_SEG.length + 1); // la última es +Inf
+    private final LongAdder latenciaTotalNanos = new LongAdder();
+
+    Metricas() {
+        for (int i = 0; i < rechazos.length; i++) rechazos[i] = new LongAdder();
+    }
+
+    /** Suma 'nanos' al tiempo de la fase (las fases repetidas, p. ej. en --vigilar, se acumulan). */
+    synchronized void fase(String nombre, long nanos) {
+        fasesNanos.merge(nombre, nanos, Long::sum);
+    }
+
+    /** Suma un archivo recién procesado; 'res' trae su diagnóstico (líneas y rechazos). */
+    void registrarArchivo(long nanos, Resultados res) {
+        archivos.increment();
+        bytes.add(res.bytesArchivo);
+        lineas.add(res.lineasArchivo);
+        for (int i = 0; i < rechazos.length; i++) {
+            if (res.rechazosArchivo[i] != 0) rechazos[i].add(res.rechazosArchivo[i]);
+        }
+
+        double seg = nanos / 1e9;
+        int i = 0;
+        while (i < LIMITES_SEG.length && seg > LIMITES_SEG[i]) i++;
+        cubetas.incrementAndGet(i);
+        latenciaTotalNanos.add(nanos);
+    }
+
+    /** Rechazos detectados fuera de la lectura por archivo (p. ej. en los cruces del modo externo). */
+    void sumarRechazos(MotivoRechazo motivo, long cantidad) {
+        rechazos[motivo.ordinal()].add(cantidad);
+    }
+
+    long archivos() {
+        return archivos.sum();
+    }
+
+    long lineas() {
+        return lineas.sum();
+    }
+
+    long rechazos(MotivoRechazo motivo) {
+        return rechazos[motivo.ordinal()].sum();
+    }
+
+    /** Segundos de la fase de lectura de ventas (base de las tasas); 0 si no hubo. */
+    private synchronized double segundosVentas() {
+        Long n = fasesNanos.get("ventas");
+        return n == null ? 0 : n / 1e9;
+    }
+
+    private static double tasa(long cantidad, double segundos) {
+        return segundos > 0 ? cantidad / segundos : 0;
+    }
+
+    // =========================================================================================
+    // Exportación
+    // =========================================================================================
+
+    void exportar(Path json, Path prometheus) throws IOException {
+        // Se toma una sola "foto" para que ambos archivos cuenten lo mismo
+        Foto f = new Foto();
+        EscrituraAtomica.reemplazar(json, tmp -> escribir(tmp, f.json()));
+        EscrituraAtomica.reemplazar(prometheus, tmp -> escribir(tmp, f.prometheus()));
+    }
+
+    private static void escribir(Path tmp, String contenido) throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            bw.write(contenido);
+        }
+    }
+
+    private final class Foto {
+        final long marcaTiempo = System.currentTimeMillis();
+        final long totalNanos = System.nanoTime() - inicioNanos;
+        final Map<String, Long> fases;
+        final long archivos = Metricas.this.archivos.sum();
+        final long lineas = Metricas.this.lineas.sum();
+        final long bytes = Metricas.this.bytes.sum();
+        final long[] rechazos = new long[Metricas.this.rechazos.length];
+        final long[] cubetas = new long[Metricas.this.cubetas.length()];
+        final long latenciaNanos = latenciaTotalNanos.sum();
+        final double segVentas = segundosVentas();
+
+        Foto() {
+            synchronized (Metricas.this) {
+                fases = new LinkedHashMap<>(fasesNanos);
+            }
+            for (int i = 0; i < rechazos.length; i++) rechazos[i] = Metricas.this.rechazos[i].sum();
+            for (int i = 0; i < cubetas.length; i++) cubetas[i] = Metricas.this.cubetas.get(i);
+        }
+
+        String json() {
+            StringBuilder sb = new StringBuilder(2048);
+            sb.append("{\n");
+            sb.append("  \"marcaTiempo\": \"").append(Instant.ofEpochMilli(marcaTiempo)).append("\",\n");
+            sb.append("  \"totalMs\": ").append(TimeUnit.NANOSECONDS.toMillis(totalNanos)).append(",\n");
+            sb.append("  \"fasesMs\": {");
+            String coma = "";
+            for (Map.Entry<String, Long> e : fases.entrySet()) {
+                sb.append(coma).append("\n    \"").append(e.getKey()).append("\": ")
+                        .append(TimeUnit.NANOSECONDS.toMillis(e.getValue()));
+                coma = ",";
+            }
+            sb.append("\n  },\n");
+            sb.append("  \"archivos\": ").append(archivos).append(",\n");
+            sb.append("  \"lineas\": ").append(lineas).append(",\n");
+            sb.append("  \"bytes\": ").append(bytes).append(",\n");
+            sb.append("  \"archivosPorSegundo\": ").append(num(tasa(archivos, segVentas))).append(",\n");
+            sb.append("  \"lineasPorSegundo\": ").append(num(tasa(lineas, segVentas))).append(",\n");
+            sb.append("  \"bytesPorSegundo\": ").append(num(tasa(bytes, segVentas))).append(",\n");
+            sb.append("  \"rechazos\": {");
+            coma = "";
+            for (MotivoRechazo m : MotivoRechazo.values()) {
+                sb.append(coma).append("\n    \"").append(m.clave).append("\": ").append(rechazos[m.ordinal()]);
+                coma = ",";
+            }
+            sb.append("\n  },\n");
+            sb.append("  \"latenciaArchivo\": {\n");
+            sb.append("    \"limitesSegundos\": [");
+            for (int i = 0; i < LIMITES_SEG.length; i++) sb.append(i == 0 ? "" : ", ").append(num(LIMITES_SEG[i]));
+            sb.append("],\n    \"conteos\": [");
+            for (int i = 0; i < cubetas.length; i++) sb.append(i == 0 ? "" : ", ").append(cubetas[i]);
+            sb.append("],\n");
+            sb.append("    \"sumaSegundos\": ").append(num(latenciaNanos / 1e9)).append(",\n");
+            sb.append("    \"p50Segundos\": ").append(percentil(0.50)).append(",\n");
+            sb.append("    \"p95Segundos\": ").append(percentil(0.95)).append(",\n");
+            sb.append("    \"p99Segundos\": ").append(percentil(0.99)).append("\n");
+            sb.append("  }\n");
+            sb.append("}\n");
+            return sb.toString();
+        }
+
+        /** Cota superior de la cubeta donde cae el percentil ("null" si no hubo archivos o cae en +Inf). */
+        private String percentil(double q) {
+            long total = 0;
+            for (long c : cubetas) total += c;
+            if (total == 0) return "null";
+            long objetivo = (long) Math.ceil(q * total);
+            long acumulado = 0;
+            for (int i = 0; i < LIMITES_SEG.length; i++) {
+                acumulado += cubetas[i];
+                if (acumulado >= objetivo) return num(LIMITES_SEG[i]);
+            }
+            return "null";
+        }
+
+        String prometheus() {
+            StringBuilder sb = new StringBuilder(4096);
+            sb.append("# HELP ventas_fase_segundos Tiempo de reloj de cada fase de la corrida.\n");
+            sb.append("# TYPE ventas_fase_segundos gauge\n");
+            for (Map.Entry<String, Long> e : fases.entrySet()) {
+                sb.append("ventas_fase_segundos{fase=\"").append(e.getKey()).append("\"} ")
+                        .append(num(e.getValue() / 1e9)).append('\n');
+            }
+            sb.append("ventas_fase_segundos{fase=\"total\"} ").append(num(totalNanos / 1e9)).append('\n');
+
+            contador(sb, "ventas_archivos_total", "Archivos de ventas procesados.", archivos);
+            contador(sb, "ventas_lineas_total", "Líneas no vacías leídas de los archivos de ventas.", lineas);
+            contador(sb, "ventas_bytes_total", "Bytes de archivos de ventas procesados.", bytes);
+
+            medida(sb, "ventas_archivos_por_segundo", "Archivos por segundo en la fase de ventas.", tasa(archivos, segVentas));
+            medida(sb, "ventas_lineas_por_segundo", "Líneas por segundo en la fase de ventas.", tasa(lineas, segVentas));
+            medida(sb, "ventas_bytes_por_segundo", "Bytes por segundo en la fase de ventas.", tasa(bytes, segVentas));
+
+            sb.append("# HELP ventas_rechazos_total Líneas o archivos rechazados, por motivo.\n");
+            sb.append("# TYPE ventas_rechazos_total counter\n");
+            for (MotivoRechazo m : MotivoRechazo.values()) {
+                sb.append("ventas_rechazos_total{motivo=\"").append(m.clave).append("\"} ")
+                        .append(rechazos[m.ordinal()]).append('\n');
+            }
+
+            sb.append("# HELP ventas_archivo_duracion_segundos Latencia de lectura y acumulación por archivo.\n");
+            sb.append("# TYPE ventas_archivo_duracion_segundos histogram\n");
+            long acumulado = 0;
+            for (int i = 0; i < LIMITES_SEG.length; i++) {
+                acumulado += cubetas[i];
+                sb.append("ventas_archivo_duracion_segundos_bucket{le=\"").append(num(LIMITES_SEG[i])).append("\"} ")
+                        .append(acumulado).append('\n');
+            }
+            acumulado += cubetas[LIMITES_SEG.length];
+            sb.append("ventas_archivo_duracion_segundos_bucket{le=\"+Inf\"} ").append(acumulado).append('\n');
+            sb.append("ventas_archivo_duracion_segundos_sum ").append(num(latenciaNanos / 1e9)).append('\n');
+            sb.append("ventas_archivo_duracion_segundos_count ").append(acumulado).append('\n');
+
+            medida(sb, "ventas_ultima_corrida_timestamp_segundos", "Momento en que se exportaron estas métricas.",
+                    marcaTiempo / 1000.0);
+            return sb.toString();
+        }
+    }
+
+    private static void contador(StringBuilder sb, String nombre, String ayuda, long valor) {
+        sb.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        sb.append("# TYPE ").append(nombre).append(" counter\n");
+        sb.append(nombre).append(' ').append(valor).append('\n');
+    }
+
+    private static void medida(StringBuilder sb, String nombre, String ayuda, double valor) {
+        sb.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        sb.append("# TYPE ").append(nombre).append(" gauge\n");
+        sb.append(nombre).append(' ').append(num(valor)).append('\n');
+    }
+
+    /** Número sin notación científica ni separadores del idioma local (válido en JSON y Prometheus). */
+    private static String num(double v) {
+        return BigDecimal.valueOf(v).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,22 @@
+package edu.poligran.proyecto;
+
+/**
+ * Motivos por los que una línea (o un archivo completo) de ventas no se acumula tal cual.
+ * La clave es el nombre que se usa en las métricas exportadas; la descripción, el texto del log.
+ */
+enum MotivoRechazo {
+    ARCHIVO_VACIO("archivo_vacio", "archivo vacío"),                             // se ignora el archivo
+    CABECERA_INVALIDA("cabecera_invalida", "cabecera inválida"),                 // se ignora el archivo
+    VENDEDOR_DESCONOCIDO("vendedor_desconocido", "vendedor no encontrado"),      // sus ventas se acumulan por clave
+    LINEA_INVALIDA("linea_invalida", "líneas de venta inválidas"),
+    PRODUCTO_DESCONOCIDO("producto_desconocido", "IDProducto inexistente"),
+    CANTIDAD_INVALIDA("cantidad_invalida", "cantidades inválidas o no positivas");
+
+    final String clave;
+    final String descripcion;
+
+    MotivoRechazo(String clave, String descripcion) {
+        this.clave = clave;
+        this.descripcion = descripcion;
+    }
+}
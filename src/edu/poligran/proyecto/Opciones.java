@@ -0,0 +1,84 @@
+package edu.poligran.proyecto;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opciones de ejecución recibidas por línea de comandos.
+ * Formato aceptado:  --clave=valor   o   --bandera   (equivale a --bandera=true)
+ *
+ * No se pregunta nada al usuario: si una opción no viene, se usa su valor por defecto.
+ * Cada programa declara las claves que entiende: una clave desconocida (p. ej. --hilo=4 en vez de
+ * --hilos=4) es un error y no se ignora, para no correr en silencio con los valores por defecto.
+ */
+final class Opciones {
+
+    private final Map<String, String> valores = new HashMap<>();
+
+    private Opciones() { }
+
+    /** 'conocidas' son las claves que acepta el programa (sin "--"). */
+    static Opciones parsear(String[] args, String... conocidas) {
+        Opciones op = new Opciones();
+        if (args == null) return op;
+        for (String arg : args) {
+            if (arg == null || !arg.startsWith("--") || arg.length() == 2) {
+                throw new IllegalArgumentException("Opción inválida: " + arg + " (se espera --clave=valor)");
+            }
+            String cuerpo = arg.substring(2);
+            int eq = cuerpo.indexOf('=');
+            String clave = eq < 0 ? cuerpo : cuerpo.substring(0, eq);
+            if (!Arrays.asList(conocidas).contains(clave)) {
+                throw new IllegalArgumentException("Opción desconocida: --" + clave
+                        + (conocidas.length == 0 ? " (este programa no recibe opciones)"
+                        : " (se aceptan: --" + String.join(", --", conocidas) + ")"));
+            }
+            op.valores.put(clave, eq < 0 ? "true" : cuerpo.substring(eq + 1));
+        }
+        return op;
+    }
+
+    boolean tiene(String clave) {
+        return valores.containsKey(clave);
+    }
+
+    String texto(String clave, String porDefecto) {
+        String v = valores.get(clave);
+        return (v == null || v.isEmpty()) ? porDefecto : v;
+    }
+
+    int entero(String clave, int porDefecto) {
+        String v = valores.get(clave);
+        if (v == null || v.isEmpty()) return porDefecto;
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Valor entero inválido para --" + clave + ": " + v);
+        }
+    }
+
+    long largo(String clave, long porDefecto) {
+        String v = valores.get(clave);
+        if (v == null || v.isEmpty()) return porDefecto;
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Valor entero inválido para --" + clave + ": " + v);
+        }
+    }
+
+    double decimal(String clave, double porDefecto) {
+        String v = valores.get(clave);
+        if (v == null || v.isEmpty()) return porDefecto;
+        try {
+            return Double.parseDouble(v.trim());
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Valor decimal inválido para --" + clave + ": " + v);
+        }
+    }
+
+    boolean bandera(String clave) {
+        return Boolean.parseBoolean(valores.get(clave));
+    }
+}
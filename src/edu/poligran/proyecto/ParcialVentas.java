@@ -0,0 +1,63 @@
+package edu.poligran.proyecto;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Acumulado parcial disperso (sólo las entradas con ventas), identificado por claves de texto
+ * y no por ordinales: sigue siendo válido aunque se vuelva a cargar el catálogo.
+ *
+ * Se usa para guardar en disco lo que aportó cada archivo de ventas y volver a sumarlo
+ * después con {@link Resultados#sumar(ParcialVentas)}.
+ */
+final class ParcialVentas {
+    final String[] clavesVendedor; // TipoDoc;NumeroDoc
+    final long[] centavos;
+    final String[] idsProducto;
+    final int[] cantidades;
+
+    ParcialVentas(String[] clavesVendedor, long[] centavos, String[] idsProducto, int[] cantidades) {
+        this.clavesVendedor = clavesVendedor;
+        this.centavos = centavos;
+        this.idsProducto = idsProducto;
+        this.cantidades = cantidades;
+    }
+
+    void escribir(DataOutput out) throws IOException {
+        out.writeInt(clavesVendedor.length);
+        for (int i = 0; i < clavesVendedor.length; i++) {
+            out.writeUTF(clavesVendedor[i]);
+            out.writeLong(centavos[i]);
+        }
+        out.writeInt(idsProducto.length);
+        for (int i = 0; i < idsProducto.length; i++) {
+            out.writeUTF(idsProducto[i]);
+            out.writeInt(cantidades[i]);
+        }
+    }
+
+    static ParcialVentas leer(DataInput in) throws IOException {
+        int nv = leerTamano(in);
+        String[] claves = new String[nv];
+        long[] centavos = new long[nv];
+        for (int i = 0; i < nv; i++) {
+            claves[i] = in.readUTF();
+            centavos[i] = in.readLong();
+        }
+        int np = leerTamano(in);
+        String[] ids = new String[np];
+        int[] cantidades = new int[np];
+        for (int i = 0; i < np; i++) {
+            ids[i] = in.readUTF();
+            cantidades[i] = in.readInt();
+        }
+        return new ParcialVentas(claves, centavos, ids, cantidades);
+    }
+
+    private static int leerTamano(DataInput in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) throw new IOException("Parcial corrupto: tamaño negativo " + n);
+        return n;
+    }
+}
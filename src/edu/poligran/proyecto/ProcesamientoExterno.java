@@ -0,0 +1,633 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * Modo externo (--externo): agregación por particiones en disco, para catálogos y ventas que no
+ * caben en memoria (p. ej. cientos de millones de vendedores). El heap que se usa depende de
+ * --memoria-mb, no del tamaño de los datos.
+ *
+ * Nada se carga completo: ni los catálogos ni los acumulados. Los registros se reparten por hash
+ * de su clave en P particiones (archivos temporales en data/.externo) y cada partición se reduce
+ * por separado:
+ *  1) particionado: productos.csv y vendedores.csv se reparten por ID / clave; cada archivo de
+ *     ventas se lee en flujo y se emite (IDProducto, claveVendedor, cantidad) repartido por ID de
+ *     producto (agrupando antes, dentro del archivo, las líneas del mismo producto);
+ *  2) cruce con productos: por partición, el catálogo de esa partición va a un HashMap y se recorren
+ *     sus ventas: se suman cantidades por producto y se emite (claveVendedor, centavos) repartido por
+ *     vendedor. Los productos vendidos quedan ordenados en una "corrida" (archivo) por partición;
+ *  3) reducción de vendedores: por partición, se suman los centavos por vendedor, se cruzan con los
+ *     nombres de esa partición y se deja otra corrida ordenada. Una partición con más vendedores
+ *     distintos de los que caben (reparto desparejo, muchos vendedores desconocidos) se vuelve a
+ *     repartir en disco por otro hash, así que la memoria sigue acotada;
+ *  4) reportes: mezcla de las P corridas de cada reporte (k-way merge) directo al CSV.
+ *
+ * Los reportes son idénticos byte a byte a los del modo en memoria (mismas reglas de validación,
+ * mismo orden con desempate por clave, mismo formato). Diferencias sólo en el diagnóstico: un ID de
+ * producto inexistente recién se detecta en el paso 2, así que se informa en un resumen global (no
+ * por archivo), y una línea con ID inexistente Y cantidad inválida cuenta como cantidad inválida.
+ * Tampoco se puede avisar "vendedor no encontrado" por archivo: se resume en el paso 3.
+ */
+final class ProcesamientoExterno {
+
+    /** Bytes de heap estimados por byte de CSV cuando una partición se carga en un HashMap. */
+    private static final int FACTOR_MEMORIA = 6;
+    private static final int MAX_PARTICIONES = 4096;
+    /** Partes en que se vuelve a repartir una partición de vendedores demasiado grande, y niveles máximos. */
+    private static final int SUBPARTICIONES = 16;
+    private static final int MAX_NIVELES = 4;
+
+    private final Path dirTemporal;
+    private final int particiones;
+    private final int tamBufer;           // búfer de cada archivo de partición abierto a la vez
+    private final int maxAgrupados;       // entradas de los mapas de pre-agregación antes de volcar
+    private final Metricas metricas;
+    private final List<Path> corridasVendedores = new ArrayList<>();
+
+    private ProcesamientoExterno(Path dirTemporal, int particiones, long memoriaBytes, Metricas metricas) {
+        this.dirTemporal = dirTemporal;
+        this.particiones = particiones;
+        this.tamBufer = (int) Math.max(4096, Math.min(1 << 16, memoriaBytes / 4 / particiones));
+        this.maxAgrupados = (int) Math.max(1024, Math.min(1 << 20, memoriaBytes / 8 / 160));
+        this.metricas = metricas;
+    }
+
+    /**
+     * Ejecuta el modo externo completo y escribe ambos reportes.
+     * particiones = 0 las calcula a partir del tamaño de las entradas y de memoriaMb.
+     */
+    static void ejecutar(Path productosCsv, Path vendedoresCsv, Path ventasDir,
+                         Path dirTemporal, int top, int memoriaMb, int particiones,
+                         boolean comprimir, boolean consolidar, Metricas metricas) throws IOException {
+        if (memoriaMb <= 0) throw new IllegalArgumentException("--memoria-mb debe ser > 0: " + memoriaMb);
+        if (particiones < 0) throw new IllegalArgumentException("--particiones no puede ser negativo: " + particiones);
+        long memoria = memoriaMb * 1024L * 1024L;
+
+        List<Path> archivos = Main.listarArchivosVenta(ventasDir, consolidar);
+        if (particiones == 0) {
+            long mayor = Math.max(Files.size(productosCsv), Files.size(vendedoresCsv));
+            particiones = calcularParticiones(mayor, memoria);
+        }
+        Bitacora.info("Modo externo: " + particiones + " partición(es), memoria " + memoriaMb + " MiB, temporales en "
+                + dirTemporal.toAbsolutePath());
+
+        borrarRecursivo(dirTemporal);
+        Files.createDirectories(dirTemporal);
+        ProcesamientoExterno pe = new ProcesamientoExterno(dirTemporal, particiones, memoria, metricas);
+        try {
+            long t0 = System.nanoTime();
+            pe.particionarCatalogos(productosCsv, vendedoresCsv);
+            pe.particionarVentas(archivos);
+            metricas.fase("particionado", System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            pe.cruzarProductos(top);
+            metricas.fase("cruce_productos", System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            pe.reducirVendedores(top);
+            metricas.fase("reduccion_vendedores", System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            EscrituraAtomica.reemplazar(Main.reporte(Main.REPORTE_VENDEDORES, comprimir),
+                    tmp -> pe.mezclarVendedores(tmp, top, comprimir));
+            Main.borrarOtraVariante(Main.REPORTE_VENDEDORES, comprimir);
+            EscrituraAtomica.reemplazar(Main.reporte(Main.REPORTE_PRODUCTOS, comprimir),
+                    tmp -> pe.mezclarProductos(tmp, top, comprimir));
+            Main.borrarOtraVariante(Main.REPORTE_PRODUCTOS, comprimir);
+            // --binario no se combina con --externo: un .bin anterior ya no corresponde a los CSV
+            Files.deleteIfExists(Main.REPORTE_VENDEDORES_BIN);
+            Files.deleteIfExists(Main.REPORTE_PRODUCTOS_BIN);
+            metricas.fase("reportes", System.nanoTime() - t0);
+        } finally {
+            borrarRecursivo(dirTemporal);
+        }
+    }
+
+    /** Potencia de 2 tal que la partición más grande de un catálogo quepa en la mitad de la memoria. */
+    static int calcularParticiones(long bytesCatalogo, long memoria) {
+        long necesarias = (bytesCatalogo * FACTOR_MEMORIA) / Math.max(1, memoria / 2) + 1;
+        int p = 1;
+        while (p < necesarias && p < MAX_PARTICIONES) p <<= 1;
+        return p;
+    }
+
+    private int particion(String clave) {
+        int h = clave.hashCode();
+        h ^= (h >>> 16);
+        h *= 0x85EBCA6B; // mezcla (murmur3) para no depender de la calidad de String.hashCode
+        h ^= (h >>> 13);
+        return (h & 0x7FFFFFFF) % particiones;
+    }
+
+    private Path archivo(String prefijo, int i) {
+        return archivo(prefijo, Integer.toString(i));
+    }
+
+    /** 'parte' = número de partición, o "i-j-..." para las subparticiones de la reducción de vendedores. */
+    private Path archivo(String prefijo, String parte) {
+        return dirTemporal.resolve(prefijo + "-" + parte + ".bin");
+    }
+
+    // =========================================================================================
+    // 1) Particionado
+    // =========================================================================================
+
+    private void particionarCatalogos(Path productosCsv, Path vendedoresCsv) throws IOException {
+        try (Particiones out = new Particiones("productos");
+             BufferedReader br = Files.newBufferedReader(productosCsv, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                Producto p = Main.parsearProducto(line);
+                if (p == null) continue;
+                DataOutputStream o = out.de(particion(p.getId()));
+                o.writeUTF(p.getId());
+                o.writeUTF(p.getNombre());
+                o.writeLong(p.getPrecioCentavos());
+            }
+        }
+        try (Particiones out = new Particiones("vendedores");
+             BufferedReader br = Files.newBufferedReader(vendedoresCsv, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                Vendedor v = Main.parsearVendedor(line);
+                if (v == null) continue;
+                String clave = Main.claveVendedor(v.getTipoDocumento(), v.getNumeroDocumento());
+                DataOutputStream o = out.de(particion(clave));
+                o.writeUTF(clave);
+                o.writeUTF(v.getNombres() + " " + v.getApellidos());
+            }
+        }
+    }
+
+    /**
+     * Lee cada archivo de ventas con las mismas reglas que el motor por flujo (cabecera, líneas en
+     * blanco, ';' final, cantidad entera positiva) y emite (ID, claveVendedor, cantidad, líneas).
+     * Dentro de un archivo el vendedor es siempre el mismo, así que se agrupa por ID antes de emitir.
+     */
+    private void particionarVentas(List<Path> archivos) throws IOException {
+        Resultados diag = new Resultados(new CatalogoEnMemoria<>(0), new CatalogoEnMemoria<>(0)); // sólo su diagnóstico
+        try (Particiones out = new Particiones("ventas")) {
+            Main.LectorVentas lector = Main.instrumentar((archivo, res) -> {
+                try (BufferedReader br = ArchivosComprimidos.nuevoLector(archivo, res)) {
+                    particionarArchivo(br, res, out);
+                }
+            }, metricas);
+            for (Path archivo : archivos) lector.procesar(archivo, diag);
+        }
+    }
+
+    private void particionarArchivo(BufferedReader br, Resultados res, Particiones out) throws IOException {
+        String primera = br.readLine();
+        if (primera == null) {
+            res.rechazar(MotivoRechazo.ARCHIVO_VACIO, null);
+            return;
+        }
+        res.lineasArchivo++;
+        String claveVend = Main.claveCabecera(primera, res);
+        if (claveVend == null) return;
+
+        Map<String, long[]> agrupado = new HashMap<>(); // ID -> {cantidad, líneas}
+        String linea;
+        while ((linea = br.readLine()) != null) {
+            String ln = linea.trim();
+            if (ln.isEmpty()) continue;
+            res.lineasArchivo++;
+
+            if (ln.endsWith(";")) ln = ln.substring(0, ln.length() - 1);
+            String[] parts = ln.split(";");
+            if (parts.length < 2) {
+                res.rechazar(MotivoRechazo.LINEA_INVALIDA, linea);
+                continue;
+            }
+            String idProd = parts[0].trim();
+            String cantStr = parts[1].trim();
+            int cantidad;
+            try {
+                cantidad = Integer.parseInt(cantStr);
+            } catch (NumberFormatException nfe) {
+                res.rechazar(MotivoRechazo.CANTIDAD_INVALIDA, cantStr);
+                continue;
+            }
+            if (cantidad <= 0) {
+                res.rechazar(MotivoRechazo.CANTIDAD_INVALIDA, cantStr);
+                continue;
+            }
+
+            long[] celda = agrupado.get(idProd);
+            if (celda == null) {
+                if (agrupado.size() >= maxAgrupados) volcarVentas(agrupado, claveVend, out);
+                agrupado.put(idProd, new long[]{cantidad, 1});
+            } else {
+                celda[0] += cantidad; // no desborda: a lo sumo 2^31 líneas de 2^31 unidades
+                celda[1]++;
+            }
+        }
+        volcarVentas(agrupado, claveVend, out);
+    }
+
+    private void volcarVentas(Map<String, long[]> agrupado, String claveVend, Particiones out) throws IOException {
+        for (Map.Entry<String, long[]> e : agrupado.entrySet()) {
+            DataOutputStream o = out.de(particion(e.getKey()));
+            o.writeUTF(e.getKey());
+            o.writeUTF(claveVend);
+            o.writeLong(e.getValue()[0]);
+            o.writeLong(e.getValue()[1]);
+        }
+        agrupado.clear();
+    }
+
+    // =========================================================================================
+    // 2) Cruce con productos
+    // =========================================================================================
+
+    private static final class FilaProducto {
+        final String nombre;
+        final long centavos;
+        long cantidad;
+
+        FilaProducto(String nombre, long centavos) {
+            this.nombre = nombre;
+            this.centavos = centavos;
+        }
+    }
+
+    private void cruzarProductos(int top) throws IOException {
+        long lineasDesconocidas = 0;
+        List<String> ejemplos = new ArrayList<>();
+
+        try (Particiones dinero = new Particiones("dinero")) {
+            for (int i = 0; i < particiones; i++) {
+                // Catálogo de esta partición (el último con el mismo ID gana, como en Catalogo.agregar)
+                Map<String, FilaProducto> catalogo = new HashMap<>();
+                try (DataInputStream in = abrir(archivo("productos", i))) {
+                    while (hayMas(in)) {
+                        String id = in.readUTF();
+                        catalogo.put(id, new FilaProducto(in.readUTF(), in.readLong()));
+                    }
+                }
+
+                Map<String, long[]> porVendedor = new HashMap<>();
+                try (DataInputStream in = abrir(archivo("ventas", i))) {
+                    while (hayMas(in)) {
+                        String id = in.readUTF();
+                        String claveVend = in.readUTF();
+                        long cantidad = in.readLong();
+                        long lineas = in.readLong();
+                        FilaProducto p = catalogo.get(id);
+                        if (p == null) {
+                            lineasDesconocidas += lineas;
+                            if (ejemplos.size() < Resultados.EJEMPLOS) ejemplos.add("\"" + id + "\"");
+                            continue;
+                        }
+                        p.cantidad = Math.addExact(p.cantidad, cantidad);
+                        if (p.cantidad > Integer.MAX_VALUE) {
+                            // Mismo límite que el acumulado en memoria (int por producto)
+                            throw new ArithmeticException("Desborde al acumular la cantidad del producto " + id);
+                        }
+                        long centavos = Math.multiplyExact(p.centavos, cantidad);
+                        long[] celda = porVendedor.get(claveVend);
+                        if (celda == null) {
+                            if (porVendedor.size() >= maxAgrupados) volcarDinero(porVendedor, dinero);
+                            porVendedor.put(claveVend, new long[]{centavos});
+                        } else {
+                            celda[0] = Math.addExact(celda[0], centavos);
+                        }
+                    }
+                }
+                volcarDinero(porVendedor, dinero);
+                escribirCorridaProductos(i, catalogo, top);
+                Files.deleteIfExists(archivo("productos", i));
+                Files.deleteIfExists(archivo("ventas", i));
+            }
+        }
+
+        if (lineasDesconocidas > 0) {
+            metricas.sumarRechazos(MotivoRechazo.PRODUCTO_DESCONOCIDO, lineasDesconocidas);
+            Bitacora.warn("Modo externo: " + MotivoRechazo.PRODUCTO_DESCONOCIDO.descripcion + " = "
+                    + lineasDesconocidas + " línea(s) (ej.: " + String.join(", ", ejemplos) + ")");
+        }
+    }
+
+    private void volcarDinero(Map<String, long[]> porVendedor, Particiones dinero) throws IOException {
+        for (Map.Entry<String, long[]> e : porVendedor.entrySet()) {
+            DataOutputStream o = dinero.de(particion(e.getKey()));
+            o.writeUTF(e.getKey());
+            o.writeLong(e.getValue()[0]);
+        }
+        porVendedor.clear();
+    }
+
+    /** Productos vendidos de la partición, ya en orden de reporte: cantidad desc, ID asc. */
+    private void escribirCorridaProductos(int i, Map<String, FilaProducto> catalogo, int top) throws IOException {
+        List<String> ids = new ArrayList<>();
+        List<FilaProducto> filas = new ArrayList<>();
+        for (Map.Entry<String, FilaProducto> e : catalogo.entrySet()) {
+            if (e.getValue().cantidad > 0) {
+                ids.add(e.getKey());
+                filas.add(e.getValue());
+            }
+        }
+        SeleccionTopK sel = new SeleccionTopK(top > 0 ? top : Integer.MAX_VALUE, (a, b) -> {
+            int c = Long.compare(filas.get(b).cantidad, filas.get(a).cantidad);
+            return c != 0 ? c : ids.get(a).compareTo(ids.get(b));
+        });
+        for (int j = 0; j < ids.size(); j++) sel.ofrecer(j);
+
+        try (DataOutputStream o = crear(archivo("corrida-productos", i))) {
+            for (int j : sel.ordenados()) {
+                FilaProducto f = filas.get(j);
+                o.writeUTF(ids.get(j));
+                o.writeUTF(f.nombre);
+                o.writeLong(f.centavos);
+                o.writeLong(f.cantidad);
+            }
+        }
+    }
+
+    // =========================================================================================
+    // 3) Reducción de vendedores
+    // =========================================================================================
+
+    private void reducirVendedores(int top) throws IOException {
+        long desconocidos = 0;
+        List<String> ejemplos = new ArrayList<>();
+        for (int i = 0; i < particiones; i++) desconocidos += reducir(Integer.toString(i), 0, top, ejemplos);
+
+        if (desconocidos > 0) {
+            metricas.sumarRechazos(MotivoRechazo.VENDEDOR_DESCONOCIDO, desconocidos);
+            Bitacora.warn("Modo externo: " + MotivoRechazo.VENDEDOR_DESCONOCIDO.descripcion + " = "
+                    + desconocidos + " (ej.: " + String.join(", ", ejemplos) + ")");
+        }
+    }
+
+    /**
+     * Suma los centavos por vendedor de dinero-'parte', los cruza con los nombres de vendedores-'parte'
+     * y deja la corrida ordenada corrida-vendedores-'parte' (en {@link #corridasVendedores}).
+     * Devuelve cuántos vendedores no están en el catálogo. Si aparecen más de maxAgrupados vendedores
+     * distintos, no se sigue llenando el mapa: ver {@link #subdividir}.
+     */
+    private long reducir(String parte, int nivel, int top, List<String> ejemplos) throws IOException {
+        Map<String, long[]> totales = new HashMap<>();
+        boolean desborde = false;
+        try (DataInputStream in = abrir(archivo("dinero", parte))) {
+            while (hayMas(in)) {
+                String clave = in.readUTF();
+                long centavos = in.readLong();
+                long[] celda = totales.get(clave);
+                if (celda == null) {
+                    if (totales.size() >= maxAgrupados && nivel < MAX_NIVELES) {
+                        desborde = true;
+                        break;
+                    }
+                    totales.put(clave, new long[]{centavos});
+                } else {
+                    celda[0] = Math.addExact(celda[0], centavos);
+                }
+            }
+        }
+        if (desborde) {
+            totales = null; // se libera antes de repartir
+            return subdividir(parte, nivel, top, ejemplos);
+        }
+
+        // Sólo se guardan los nombres de vendedores con ventas en esta partición
+        Map<String, String> nombres = new HashMap<>();
+        try (DataInputStream in = abrir(archivo("vendedores", parte))) {
+            while (hayMas(in)) {
+                String clave = in.readUTF();
+                String nombre = in.readUTF();
+                if (totales.containsKey(clave)) nombres.put(clave, nombre);
+            }
+        }
+
+        List<String> claves = new ArrayList<>(totales.keySet());
+
+        // Todos los desconocidos, no sólo los que pasan el --top (igual que el modo en memoria)
+        long desconocidos = 0;
+        for (String clave : claves) {
+            if (nombres.containsKey(clave)) continue;
+            desconocidos++;
+            if (ejemplos.size() < Resultados.EJEMPLOS) ejemplos.add("\"" + clave + "\"");
+        }
+
+        long[] centavos = new long[claves.size()];
+        for (int j = 0; j < centavos.length; j++) centavos[j] = totales.get(claves.get(j))[0];
+        SeleccionTopK sel = new SeleccionTopK(top > 0 ? top : Integer.MAX_VALUE, (a, b) -> {
+            int c = Long.compare(centavos[b], centavos[a]);
+            return c != 0 ? c : claves.get(a).compareTo(claves.get(b));
+        });
+        for (int j = 0; j < centavos.length; j++) sel.ofrecer(j);
+
+        Path corrida = archivo("corrida-vendedores", parte);
+        try (DataOutputStream o = crear(corrida)) {
+            for (int j : sel.ordenados()) {
+                String clave = claves.get(j);
+                String nombre = nombres.get(clave);
+                if (nombre == null) nombre = clave; // fallback: "CC;123..." (igual que el modo en memoria)
+                o.writeUTF(clave);
+                o.writeUTF(nombre);
+                o.writeLong(centavos[j]);
+            }
+        }
+        corridasVendedores.add(corrida);
+        Files.deleteIfExists(archivo("dinero", parte));
+        Files.deleteIfExists(archivo("vendedores", parte));
+        return desconocidos;
+    }
+
+    /**
+     * Reparte dinero-'parte' y vendedores-'parte' en SUBPARTICIONES por un hash distinto en cada nivel
+     * y reduce cada parte: cada corrida queda ordenada y la mezcla final las combina como a las demás.
+     * Después de MAX_NIVELES (claves con el mismo hash) se reduce sin límite.
+     */
+    private long subdividir(String parte, int nivel, int top, List<String> ejemplos) throws IOException {
+        for (String prefijo : new String[]{"dinero", "vendedores"}) {
+            DataOutputStream[] salidas = new DataOutputStream[SUBPARTICIONES];
+            try (DataInputStream in = abrir(archivo(prefijo, parte))) {
+                for (int j = 0; j < SUBPARTICIONES; j++) salidas[j] = crear(archivo(prefijo, parte + "-" + j));
+                while (hayMas(in)) {
+                    String clave = in.readUTF();
+                    DataOutputStream o = salidas[subparticion(clave, nivel)];
+                    o.writeUTF(clave);
+                    if (prefijo.equals("dinero")) {
+                        o.writeLong(in.readLong());
+                    } else {
+                        o.writeUTF(in.readUTF());
+                    }
+                }
+            } finally {
+                for (DataOutputStream o : salidas) {
+                    if (o != null) o.close();
+                }
+            }
+            Files.deleteIfExists(archivo(prefijo, parte));
+        }
+        long desconocidos = 0;
+        for (int j = 0; j < SUBPARTICIONES; j++) desconocidos += reducir(parte + "-" + j, nivel + 1, top, ejemplos);
+        return desconocidos;
+    }
+
+    /** Hash FNV-1a sembrado con el nivel: no depende de String.hashCode ni del de {@link #particion}. */
+    private static int subparticion(String clave, int nivel) {
+        int h = 0x811C9DC5 ^ (0x9E3779B9 * (nivel + 1));
+        for (int k = 0; k < clave.length(); k++) {
+            h ^= clave.charAt(k);
+            h *= 0x01000193;
+        }
+        h ^= (h >>> 16);
+        return (h & 0x7FFFFFFF) % SUBPARTICIONES;
+    }
+
+    // =========================================================================================
+    // 4) Mezcla de corridas -> reportes
+    // =========================================================================================
+
+    /** Cabeza de una corrida durante la mezcla: la fila actual y el flujo del que sale la siguiente. */
+    private static final class Cabeza {
+        final DataInputStream in;
+        String clave;
+        String nombre;
+        long valor;     // centavos (vendedores) o cantidad (productos)
+        long precio;    // sólo productos
+
+        Cabeza(DataInputStream in) {
+            this.in = in;
+        }
+    }
+
+    private void mezclarVendedores(Path destino, int top, boolean comprimir) throws IOException {
+        mezclar(corridasVendedores, destino, top, false, comprimir);
+    }
+
+    private void mezclarProductos(Path destino, int top, boolean comprimir) throws IOException {
+        List<Path> corridas = new ArrayList<>(particiones);
+        for (int i = 0; i < particiones; i++) corridas.add(archivo("corrida-productos", i));
+        mezclar(corridas, destino, top, true, comprimir);
+    }
+
+    private void mezclar(List<Path> corridas, Path destino, int top, boolean productos, boolean comprimir) throws IOException {
+        PriorityQueue<Cabeza> cola = new PriorityQueue<>(Math.max(1, corridas.size()), (a, b) -> {
+            int c = Long.compare(b.valor, a.valor);
+            return c != 0 ? c : a.clave.compareTo(b.clave);
+        });
+        List<DataInputStream> abiertos = new ArrayList<>(corridas.size());
+        char[] num = new char[24];
+        try (BufferedWriter bw = Main.nuevoEscritorReporte(destino, comprimir)) {
+            for (Path corrida : corridas) {
+                DataInputStream in = abrir(corrida);
+                abiertos.add(in);
+                Cabeza c = new Cabeza(in);
+                if (avanzar(c, productos)) cola.add(c);
+            }
+
+            // (Opcional) BOM para Excel, igual que en el modo en memoria
+            bw.write('\uFEFF');
+
+            long escritas = 0;
+            while (!cola.isEmpty() && (top <= 0 || escritas < top)) {
+                Cabeza c = cola.poll();
+                bw.write(c.nombre);
+                bw.write(';');
+                if (productos) {
+                    Main.escribirCentavos(bw, c.precio, num);
+                    bw.write(';');
+                    Main.escribirEntero(bw, (int) c.valor, num);
+                } else {
+                    Main.escribirCentavos(bw, c.valor, num);
+                }
+                bw.newLine();
+                escritas++;
+                if (avanzar(c, productos)) cola.add(c);
+            }
+        } finally {
+            for (DataInputStream in : abiertos) in.close();
+        }
+    }
+
+    private static boolean avanzar(Cabeza c, boolean productos) throws IOException {
+        if (!hayMas(c.in)) return false;
+        c.clave = c.in.readUTF();
+        c.nombre = c.in.readUTF();
+        if (productos) c.precio = c.in.readLong();
+        c.valor = c.in.readLong();
+        return true;
+    }
+
+    // =========================================================================================
+    // Archivos temporales
+    // =========================================================================================
+
+    /** Los P archivos de un mismo tipo, abiertos para escribir a la vez. */
+    private final class Particiones implements Closeable {
+        private final DataOutputStream[] salidas;
+
+        Particiones(String prefijo) throws IOException {
+            salidas = new DataOutputStream[particiones];
+            try {
+                for (int i = 0; i < particiones; i++) salidas[i] = crear(archivo(prefijo, i));
+            } catch (IOException ex) {
+                close();
+                throw ex;
+            }
+        }
+
+        DataOutputStream de(int i) {
+            return salidas[i];
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException primera = null;
+            for (DataOutputStream o : salidas) {
+                if (o == null) continue;
+                try {
+                    o.close();
+                } catch (IOException ex) {
+                    if (primera == null) primera = ex;
+                }
+            }
+            if (primera != null) throw primera;
+        }
+    }
+
+    private DataOutputStream crear(Path p) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(p), tamBufer));
+    }
+
+    private DataInputStream abrir(Path p) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(p), tamBufer));
+    }
+
+    /** true si quedan registros (los archivos temporales no llevan cantidad de registros). */
+    private static boolean hayMas(DataInputStream in) throws IOException {
+        in.mark(1);
+        if (in.read() < 0) return false;
+        in.reset();
+        return true;
+    }
+
+    private static void borrarRecursivo(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException exc) throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,263 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Procesamiento repartido entre varios procesos (JVMs o máquinas con la carpeta data/ compartida).
+ *
+ *  - Trabajador (--fragmento=I/N): procesa sólo los archivos de ventas cuyo nombre cae en el
+ *    fragmento I de N (CRC32 del nombre, módulo N: el reparto es el mismo en cualquier JVM, sin
+ *    coordinación) y guarda su acumulado en data/parciales/parcial-I-de-N.bin. No escribe reportes.
+ *  - Fusión (--fusionar): toma sólo los parciales de la misma corrida, comprueba que estén los N y
+ *    que se hayan generado con los mismos catálogos, los suma y escribe los reportes: idénticos a los
+ *    de una corrida única.
+ *
+ * La corrida se identifica sin coordinación: cada proceso calcula lo mismo a partir de la lista de
+ * archivos de ventas con sus tamaños ({@link #identificadorCorrida}), o se da con --corrida=ID. Los
+ * parciales que quedaron de corridas anteriores (otros archivos, otro N) no se mezclan.
+ *
+ * Formato del parcial (versionado, big-endian):
+ *   "VPAR" | versión | huella SHA-256 de productos.csv + vendedores.csv | corrida (UTF) | I | N |
+ *   archivos procesados | {@link ParcialVentas} | CRC32 de todo lo anterior.
+ * Al ser disperso y por claves, su tamaño depende de los vendedores y productos CON ventas en el
+ * fragmento, no del tamaño de los catálogos.
+ */
+final class ProcesamientoFragmentado {
+
+    static final Path PARCIALES_DIR = Main.BASE_DIR.resolve("parciales");
+
+    private static final int MAGICO = 0x56504152; // "VPAR"
+    private static final int VERSION = 2;
+
+    private ProcesamientoFragmentado() { }
+
+    /** "I/N" (0 <= I < N) -> {I, N}. */
+    static int[] parsearFragmento(String texto) {
+        int barra = texto.indexOf('/');
+        try {
+            if (barra > 0) {
+                int i = Integer.parseInt(texto.substring(0, barra).trim());
+                int n = Integer.parseInt(texto.substring(barra + 1).trim());
+                if (n > 0 && i >= 0 && i < n) return new int[]{i, n};
+            }
+        } catch (NumberFormatException ignorada) {
+            // cae al error de abajo
+        }
+        throw new IllegalArgumentException("--fragmento inválido: " + texto + " (se espera I/N, con 0 <= I < N)");
+    }
+
+    /** Fragmento (0..total-1) al que pertenece un archivo de ventas, según su nombre. */
+    static int fragmentoDe(String nombre, int total) {
+        CRC32 crc = new CRC32();
+        crc.update(nombre.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % total);
+    }
+
+    static Path archivoParcial(Path dir, int indice, int total) {
+        return dir.resolve("parcial-" + indice + "-de-" + total + ".bin");
+    }
+
+    /**
+     * Identificador de corrida: SHA-256 (16 bytes en hex) de los nombres y tamaños de TODOS los
+     * archivos de ventas, en orden de nombre. Es el mismo en cada trabajador y en la fusión mientras
+     * la carpeta de ventas no cambie.
+     */
+    static String identificadorCorrida(List<Path> archivos) throws IOException {
+        List<Path> ordenados = new ArrayList<>(archivos);
+        ordenados.sort((a, b) -> a.getFileName().toString().compareTo(b.getFileName().toString()));
+        MessageDigest md = HuellaContenido.nuevoDigest();
+        for (Path a : ordenados) {
+            md.update((a.getFileName() + "\t" + Files.size(a) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] h = md.digest();
+        StringBuilder sb = new StringBuilder(32);
+        for (int i = 0; i < 16; i++) sb.append(String.format("%02x", h[i] & 0xFF));
+        return sb.toString();
+    }
+
+    // =========================================================================================
+    // Trabajador
+    // =========================================================================================
+
+    /** Archivos de ventas del fragmento 'indice' de 'total'. */
+    static List<Path> seleccionar(List<Path> archivos, int indice, int total) {
+        List<Path> out = new ArrayList<>();
+        for (Path archivo : archivos) {
+            if (fragmentoDe(archivo.getFileName().toString(), total) == indice) out.add(archivo);
+        }
+        return out;
+    }
+
+    /** Guarda el acumulado del fragmento (reemplazo atómico: la fusión nunca ve un parcial a medias). */
+    static void escribirParcial(Path destino, byte[] huellaCatalogos, String corrida, int indice, int total,
+                                int archivos, Resultados res) throws IOException {
+        ParcialVentas parcial = res.aParcial();
+        EscrituraAtomica.reemplazar(destino, tmp -> {
+            CheckedOutputStream crc = new CheckedOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16), new CRC32());
+            try (DataOutputStream out = new DataOutputStream(crc)) {
+                out.writeInt(MAGICO);
+                out.writeInt(VERSION);
+                out.writeShort(huellaCatalogos.length);
+                out.write(huellaCatalogos);
+                out.writeUTF(corrida);
+                out.writeInt(indice);
+                out.writeInt(total);
+                out.writeInt(archivos);
+                parcial.escribir(out);
+                out.flush();
+                out.writeLong(crc.getChecksum().getValue());
+            }
+        });
+    }
+
+    // =========================================================================================
+    // Fusión
+    // =========================================================================================
+
+    /** Parciales *.bin de la carpeta, en orden de nombre. */
+    static List<Path> listarParciales(Path dir) throws IOException {
+        List<Path> out = new ArrayList<>();
+        if (!Files.isDirectory(dir)) throw new IOException("No existe la carpeta de parciales: " + dir.toAbsolutePath());
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "parcial-*.bin")) {
+            for (Path p : stream) out.add(p);
+        }
+        Collections.sort(out);
+        return out;
+    }
+
+    /** Cabecera de un parcial (lo que hay antes del acumulado). */
+    private static final class Cabecera {
+        byte[] huella;
+        String corrida;
+        int indice;
+        int total;
+        int archivos;
+    }
+
+    /** Lee la cabecera; null si no es un parcial de esta versión. */
+    private static Cabecera leerCabecera(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGICO || in.readInt() != VERSION) return null;
+        Cabecera c = new Cabecera();
+        c.huella = new byte[in.readUnsignedShort()];
+        in.readFully(c.huella);
+        c.corrida = in.readUTF();
+        c.indice = in.readInt();
+        c.total = in.readInt();
+        c.archivos = in.readInt();
+        return c;
+    }
+
+    /**
+     * Parciales de la corrida 'corrida'. Si la misma corrida se repartió más de una vez (otro N),
+     * se toma el reparto del parcial más reciente. Los demás archivos se ignoran con un aviso.
+     */
+    private static List<Path> deLaCorrida(List<Path> parciales, String corrida) throws IOException {
+        List<Path> candidatos = new ArrayList<>();
+        List<Integer> repartos = new ArrayList<>();
+        Path masReciente = null;
+        int total = 0;
+        for (Path p : parciales) {
+            Cabecera c;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(p), 512))) {
+                c = leerCabecera(in);
+            } catch (EOFException ex) {
+                c = null;
+            }
+            if (c == null || !c.corrida.equals(corrida)) continue;
+            candidatos.add(p);
+            repartos.add(c.total);
+            if (masReciente == null
+                    || Files.getLastModifiedTime(p).compareTo(Files.getLastModifiedTime(masReciente)) > 0) {
+                masReciente = p;
+                total = c.total;
+            }
+        }
+        if (candidatos.isEmpty()) {
+            throw new IOException("No hay parciales de la corrida " + corrida + " (" + parciales.size()
+                    + " parcial(es) de otras corridas o versiones; si la carpeta de ventas cambió después de los"
+                    + " trabajadores, usar el mismo --corrida=ID en todos)");
+        }
+        List<Path> out = new ArrayList<>();
+        for (int i = 0; i < candidatos.size(); i++) {
+            if (repartos.get(i) == total) out.add(candidatos.get(i));
+        }
+        int ignorados = parciales.size() - out.size();
+        if (ignorados > 0) {
+            Bitacora.warn("Fusión: se ignoran " + ignorados + " parcial(es) de otras corridas o repartos"
+                    + " (se usa la corrida " + corrida + " en " + total + " fragmentos).");
+        }
+        return out;
+    }
+
+    /**
+     * Suma los parciales de la corrida 'corrida' (ver {@link #deLaCorrida}). Falla (sin escribir nada)
+     * si falta o se repite un fragmento, si un parcial está dañado o si alguno se generó con otros
+     * catálogos.
+     */
+    static Resultados fusionar(List<Path> parciales, String corrida, byte[] huellaCatalogos,
+                               Catalogo<Producto> productos, Catalogo<Vendedor> vendedores) throws IOException {
+        if (parciales.isEmpty()) throw new IOException("No hay parciales para fusionar");
+        List<Path> elegidos = deLaCorrida(parciales, corrida);
+        Resultados res = new Resultados(productos, vendedores);
+        boolean[] vistos = null;
+        int total = 0;
+        long archivos = 0;
+
+        for (Path p : elegidos) {
+            CheckedInputStream crc = new CheckedInputStream(
+                    new BufferedInputStream(Files.newInputStream(p), 1 << 16), new CRC32());
+            try (DataInputStream in = new DataInputStream(crc)) {
+                Cabecera c = leerCabecera(in);
+                if (c == null) throw new IOException("El parcial cambió durante la fusión: " + p);
+                ParcialVentas parcial = ParcialVentas.leer(in);
+                long esperado = crc.getChecksum().getValue();
+                if (in.readLong() != esperado) throw new IOException("Parcial dañado (CRC no coincide): " + p);
+
+                if (!Arrays.equals(c.huella, huellaCatalogos)) {
+                    throw new IOException("El parcial " + p.getFileName()
+                            + " se generó con otros productos.csv / vendedores.csv");
+                }
+                if (vistos == null) {
+                    total = c.total;
+                    vistos = new boolean[total];
+                } else if (c.total != total) {
+                    throw new IOException("El parcial cambió durante la fusión: " + p);
+                }
+                if (c.indice < 0 || c.indice >= total) throw new IOException("Fragmento fuera de rango en " + p);
+                if (vistos[c.indice]) throw new IOException("Fragmento " + c.indice + "/" + total + " repetido en " + p);
+                vistos[c.indice] = true;
+
+                res.sumar(parcial);
+                archivos += c.archivos;
+            } catch (EOFException ex) {
+                throw new IOException("Parcial incompleto: " + p, ex);
+            }
+        }
+
+        List<Integer> faltantes = new ArrayList<>();
+        for (int i = 0; i < total; i++) if (!vistos[i]) faltantes.add(i);
+        if (!faltantes.isEmpty()) {
+            throw new IOException("Faltan los fragmentos " + faltantes + " de " + total + " de la corrida "
+                    + corrida + "; los reportes quedarían incompletos");
+        }
+        Bitacora.info("Fusión: corrida " + corrida + ", " + total + " fragmento(s), " + archivos
+                + " archivo(s) de ventas en total.");
+        return res;
+    }
+}
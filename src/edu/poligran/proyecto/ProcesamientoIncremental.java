@@ -0,0 +1,399 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Modo incremental (--incremental).
+ *
+ * Guarda en un manifiesto, por cada archivo de ventas: tamaño, fecha de modificación, huella
+ * SHA-256 del contenido y el acumulado parcial que aportó ({@link ParcialVentas}). En la
+ * siguiente corrida:
+ *  - tamaño y fecha iguales          -> se reutiliza el parcial sin abrir el archivo;
+ *  - fecha distinta pero misma huella -> se reutiliza el parcial (archivo "tocado" sin cambios);
+ *  - archivo nuevo o contenido distinto -> se vuelve a procesar;
+ *  - archivo que ya no está           -> su aporte desaparece.
+ * Los totales se reconstruyen sumando los parciales vigentes, así que el resultado es el mismo
+ * que el de una corrida completa.
+ *
+ * Si productos.csv o vendedores.csv cambian (precios, altas, bajas) el manifiesto se descarta y
+ * se reprocesa todo. Los archivos reutilizados no repiten sus advertencias por consola.
+ *
+ * Con --anexos (archivos a los que las cajas sólo les agregan líneas al final) el manifiesto además
+ * guarda hasta qué byte se procesó cada archivo y un CRC32 de ese prefijo. Si el archivo creció y el
+ * prefijo coincide, sólo se leen los bytes nuevos y se suman al parcial guardado; si el archivo se
+ * achicó o el prefijo no coincide (truncado o reescrito) se vuelve a leer completo. El CRC cubre el
+ * prefijo entero: al retomar se relee el prefijo sólo para verificarlo (CRC32, sin interpretar las
+ * líneas), y el CRC de lo nuevo se va acumulando mientras se escanea. En este modo no se calcula la
+ * huella SHA-256.
+ */
+final class ProcesamientoIncremental {
+
+    private static final int MAGICO = 0x564D414E; // "VMAN"
+    private static final int VERSION = 3;
+    private static final byte[] SIN_HUELLA = new byte[0];
+    private static final int BLOQUE = 1 << 20; // lectura de los bytes nuevos y verificación del prefijo
+
+    /** Estado guardado de un archivo de ventas. */
+    private static final class Entrada {
+        final long tamano;
+        final long modificado;
+        final byte[] huella;    // vacía en --anexos
+        final long procesado;   // fin de la última línea completa incluida en 'parcial'; -1 = no aplica
+        final long crcPrefijo;  // CRC32 de [0, procesado)
+        final ParcialVentas parcial;
+        /** Aporte en ESTA corrida: 'parcial' más la última línea si quedó sin terminador (no se guarda). */
+        final ParcialVentas aporte;
+
+        Entrada(long tamano, long modificado, byte[] huella, ParcialVentas parcial) {
+            this(tamano, modificado, huella, -1, 0, parcial, parcial);
+        }
+
+        Entrada(long tamano, long modificado, byte[] huella, long procesado, long crcPrefijo,
+                ParcialVentas parcial, ParcialVentas aporte) {
+            this.tamano = tamano;
+            this.modificado = modificado;
+            this.huella = huella;
+            this.procesado = procesado;
+            this.crcPrefijo = crcPrefijo;
+            this.parcial = parcial;
+            this.aporte = aporte;
+        }
+
+        /** ¿Se puede reutilizar sin abrir el archivo? Con una línea final a medias hay que volver a leerla. */
+        boolean vigente(long tamano, long modificado) {
+            return this.tamano == tamano && this.modificado == modificado && (procesado < 0 || procesado == tamano);
+        }
+    }
+
+    private ProcesamientoIncremental() { }
+
+    static Resultados procesar(List<Path> archivos,
+                               Path manifiesto,
+                               byte[] huellaCatalogos,
+                               Main.LectorVentas lector,
+                               Catalogo<Producto> productos,
+                               Catalogo<Vendedor> vendedores,
+                               int hilos,
+                               boolean anexos,
+                               Metricas metricas) throws IOException {
+
+        Map<String, Entrada> previo = leerManifiesto(manifiesto, huellaCatalogos);
+
+        Entrada[] vigentes = new Entrada[archivos.size()];
+        long[][] atributos = new long[archivos.size()][];
+        List<Integer> pendientes = new ArrayList<>();
+        for (int i = 0; i < archivos.size(); i++) {
+            BasicFileAttributes at = Files.readAttributes(archivos.get(i), BasicFileAttributes.class);
+            atributos[i] = new long[]{at.size(), at.lastModifiedTime().toMillis()};
+            Entrada e = previo.get(nombre(archivos.get(i)));
+            if (e != null && e.vigente(atributos[i][0], atributos[i][1])) {
+                vigentes[i] = e;
+            } else {
+                pendientes.add(i);
+            }
+        }
+        int reutilizados = archivos.size() - pendientes.size();
+
+        AtomicInteger reprocesados = new AtomicInteger();
+        AtomicInteger porCola = new AtomicInteger();
+        AtomicLong bytesCola = new AtomicLong();
+        AtomicInteger siguiente = new AtomicInteger();
+        int nHilos = Math.max(1, Math.min(hilos, pendientes.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(nHilos);
+        try {
+            List<Future<Void>> tareas = new ArrayList<>(nHilos);
+            for (int h = 0; h < nHilos; h++) {
+                tareas.add(pool.submit(() -> {
+                    // Un acumulado de trabajo por hilo, reiniciado archivo por archivo
+                    Resultados trabajo = new Resultados(productos, vendedores, true);
+                    LecturaAnexos cola = anexos ? new LecturaAnexos(productos, vendedores) : null;
+                    Main.LectorVentas lectorCola = anexos ? Main.instrumentar(cola, metricas) : null;
+                    int k;
+                    while ((k = siguiente.getAndIncrement()) < pendientes.size()) {
+                        int i = pendientes.get(k);
+                        Path archivo = archivos.get(i);
+                        Entrada anterior = previo.get(nombre(archivo));
+                        if (anexos && !ArchivosComprimidos.esGzip(archivo)) {
+                            cola.anterior = anterior;
+                            lectorCola.procesar(archivo, trabajo);
+                            vigentes[i] = new Entrada(atributos[i][0], atributos[i][1], SIN_HUELLA,
+                                    cola.procesado, cola.crcPrefijo, cola.persistido, cola.aporte);
+                            if (cola.desde == 0) {
+                                reprocesados.incrementAndGet();
+                            } else if (cola.leidos > 0) {
+                                // Retomado: cuenta como procesado, pero sólo se leyó lo nuevo
+                                reprocesados.incrementAndGet();
+                                porCola.incrementAndGet();
+                                bytesCola.addAndGet(cola.leidos);
+                            }
+                            continue;
+                        }
+                        byte[] huella = HuellaContenido.calcular(archivo);
+                        ParcialVentas parcial;
+                        if (anterior != null && anterior.huella.length > 0 && Arrays.equals(anterior.huella, huella)) {
+                            parcial = anterior.parcial;
+                        } else {
+                            trabajo.reiniciar();
+                            lector.procesar(archivo, trabajo);
+                            parcial = trabajo.aParcial();
+                            reprocesados.incrementAndGet();
+                        }
+                        vigentes[i] = new Entrada(atributos[i][0], atributos[i][1], huella, parcial);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> f : tareas) Main.esperar(f);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Set<String> actuales = new HashSet<>();
+        for (Path a : archivos) actuales.add(nombre(a));
+        int eliminados = 0;
+        for (String n : previo.keySet()) if (!actuales.contains(n)) eliminados++;
+
+        escribirManifiesto(manifiesto, huellaCatalogos, archivos, vigentes);
+
+        Resultados res = new Resultados(productos, vendedores);
+        for (Entrada e : vigentes) res.sumar(e.aporte);
+
+        Bitacora.info("Incremental: " + reutilizados + " sin cambios, "
+                + (pendientes.size() - reprocesados.get()) + " tocados sin cambios, "
+                + reprocesados.get() + " procesados, " + eliminados + " eliminados."
+                + (anexos ? " Sólo el final de " + porCola.get() + " archivo(s) ("
+                        + String.format(Locale.ROOT, "%.1f", bytesCola.get() / 1048576.0) + " MiB nuevos)." : ""));
+        return res;
+    }
+
+    // =========================================================================================
+    // Sólo lo agregado al final (--anexos)
+    // =========================================================================================
+
+    /**
+     * Lee un archivo de ventas desde donde terminó la corrida anterior, o completo si eso no es
+     * posible. Lecturas posicionales sobre búferes del heap reutilizados: con miles de archivos, un
+     * mapeo por archivo agotaría vm.max_map_count. Una instancia por hilo: 'anterior' es la entrada,
+     * el resto de los campos, la salida del último archivo.
+     */
+    private static final class LecturaAnexos implements Main.LectorVentas {
+        private final LectorVentasMapeado motor;
+        private final Catalogo<Vendedor> vendedores;
+        private final ByteBuffer bloqueCrc = ByteBuffer.allocate(BLOQUE);
+        private ByteBuffer buf = ByteBuffer.allocate(BLOQUE);
+
+        Entrada anterior;
+        long desde;              // > 0 si se retomó donde quedó la corrida anterior
+        long leidos;             // bytes de ventas leídos en esta corrida
+        long procesado;
+        long crcPrefijo;
+        ParcialVentas persistido;
+        ParcialVentas aporte;
+
+        LecturaAnexos(Catalogo<Producto> productos, Catalogo<Vendedor> vendedores) {
+            this.motor = new LectorVentasMapeado(productos, vendedores);
+            this.vendedores = vendedores;
+        }
+
+        @Override
+        public void procesar(Path archivo, Resultados res) throws IOException {
+            res.reiniciar();
+            desde = 0;
+            leidos = 0;
+            procesado = -1;
+            crcPrefijo = 0;
+            try (FileChannel ch = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                long tam = ch.size();
+                if (tam == 0) {
+                    res.rechazar(MotivoRechazo.ARCHIVO_VACIO, null);
+                    persistido = aporte = res.aParcial();
+                    return;
+                }
+
+                // 1ª línea: se lee siempre (la clave del vendedor no se guarda aparte)
+                int largo;
+                int finCab;
+                while (true) {
+                    largo = leer(ch, 0, (int) Math.min(buf.capacity(), tam));
+                    finCab = LectorVentasMapeado.buscarFinLinea(buf, 0, largo);
+                    if (finCab >= 0 || largo < buf.capacity()) break;
+                    buf = ByteBuffer.allocate(LectorVentasMapeado.agrandar(buf.capacity(), archivo));
+                }
+                res.lineasArchivo++;
+                String claveVend = Main.leerCabecera(LectorVentasMapeado.texto(buf, 0, finCab >= 0 ? finCab : largo),
+                        vendedores, res);
+                if (claveVend == null || finCab < 0) {
+                    // Cabecera inválida o archivo de una sola línea: nada que retomar la próxima vez
+                    res.bytesArchivo += finCab >= 0 ? finCab : largo;
+                    persistido = aporte = res.aParcial();
+                    return;
+                }
+                int ordVend = vendedores.ordinal(claveVend);
+                long pos = LectorVentasMapeado.saltarFinLinea(buf, finCab, largo);
+                res.bytesArchivo += pos;
+                CRC32 crc = new CRC32();
+                crc.update(buf.array(), 0, (int) pos);
+
+                // Retomar: el prefijo ya sumado no cambió (CRC de todo el prefijo) y el archivo no se achicó
+                if (anterior != null && anterior.procesado >= pos && anterior.procesado <= tam) {
+                    CRC32 prefijo = crc(ch, anterior.procesado);
+                    res.bytesArchivo += anterior.procesado; // releído para verificarlo
+                    if (prefijo.getValue() == anterior.crcPrefijo) {
+                        res.sumar(anterior.parcial);
+                        pos = desde = anterior.procesado;
+                        crc = prefijo;
+                    }
+                }
+                leidos = tam - pos;
+                res.bytesArchivo += leidos;
+
+                // Líneas completas; una última sin terminador queda en buf[resto, largo)
+                int resto = 0;
+                largo = 0;
+                while (pos < tam) {
+                    int pedido = (int) Math.min(buf.capacity(), tam - pos);
+                    largo = leer(ch, pos, pedido);
+                    boolean ultimo = largo < pedido || pos + largo == tam;
+                    int consumido = motor.escanear(buf, 0, largo, false, ordVend, claveVend, res);
+                    if (consumido == 0 && !ultimo) {
+                        // Una sola línea no cabe en el búfer
+                        buf = ByteBuffer.allocate(LectorVentasMapeado.agrandar(buf.capacity(), archivo));
+                        continue;
+                    }
+                    crc.update(buf.array(), 0, consumido); // CRC corrido: el prefijo no se vuelve a leer
+                    pos += consumido;
+                    if (ultimo) {
+                        resto = consumido;
+                        break;
+                    }
+                }
+                procesado = pos;
+                crcPrefijo = crc.getValue();
+                persistido = res.aParcial();
+                if (resto < largo) {
+                    // Línea final a medias: cuenta en esta corrida pero no se guarda (puede seguir creciendo)
+                    motor.escanear(buf, resto, largo, true, ordVend, claveVend, res);
+                    aporte = res.aParcial();
+                } else {
+                    aporte = persistido;
+                }
+            }
+        }
+
+        /** Lee hasta 'n' bytes desde 'pos' en buf[0, n); menos si el archivo se achicó mientras tanto. */
+        private int leer(FileChannel ch, long pos, int n) throws IOException {
+            buf.clear();
+            buf.limit(n);
+            while (buf.hasRemaining() && ch.read(buf, pos + buf.position()) >= 0) {
+                // read posicional puede traer menos de lo pedido
+            }
+            return buf.position();
+        }
+
+        /** CRC32 de [0, fin), por bloques (un archivo que se achicó mientras tanto da otro CRC). */
+        private CRC32 crc(FileChannel ch, long fin) throws IOException {
+            CRC32 crc = new CRC32();
+            for (long pos = 0; pos < fin; ) {
+                bloqueCrc.clear();
+                bloqueCrc.limit((int) Math.min(BLOQUE, fin - pos));
+                while (bloqueCrc.hasRemaining() && ch.read(bloqueCrc, pos + bloqueCrc.position()) >= 0) {
+                    // idem
+                }
+                if (bloqueCrc.position() == 0) break;
+                pos += bloqueCrc.position();
+                bloqueCrc.flip();
+                crc.update(bloqueCrc);
+            }
+            return crc;
+        }
+    }
+
+    // =========================================================================================
+    // Manifiesto
+    // =========================================================================================
+
+    private static Map<String, Entrada> leerManifiesto(Path manifiesto, byte[] huellaCatalogos) {
+        Map<String, Entrada> out = new HashMap<>();
+        if (!Files.exists(manifiesto)) return out;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(manifiesto)))) {
+            if (in.readInt() != MAGICO || in.readInt() != VERSION) {
+                Bitacora.warn("Manifiesto incremental con formato desconocido; se reprocesa todo.");
+                return out;
+            }
+            byte[] huella = leerBytes(in);
+            if (!Arrays.equals(huella, huellaCatalogos)) {
+                Bitacora.info("Los catálogos cambiaron desde la última corrida; se reprocesa todo.");
+                return out;
+            }
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String nombre = in.readUTF();
+                long tamano = in.readLong();
+                long modificado = in.readLong();
+                byte[] h = leerBytes(in);
+                long procesado = in.readLong();
+                long crc = in.readLong();
+                ParcialVentas parcial = ParcialVentas.leer(in);
+                out.put(nombre, new Entrada(tamano, modificado, h, procesado, crc, parcial, parcial));
+            }
+        } catch (IOException ex) {
+            Bitacora.warn("No se pudo leer el manifiesto incremental (" + ex.getMessage() + "); se reprocesa todo.");
+            out.clear();
+        }
+        return out;
+    }
+
+    private static void escribirManifiesto(Path manifiesto, byte[] huellaCatalogos,
+                                           List<Path> archivos, Entrada[] vigentes) throws IOException {
+        // Reemplazo atómico: una corrida interrumpida nunca deja un manifiesto a medias
+        EscrituraAtomica.reemplazar(manifiesto, tmp -> {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGICO);
+                out.writeInt(VERSION);
+                escribirBytes(out, huellaCatalogos);
+                out.writeInt(archivos.size());
+                for (int i = 0; i < archivos.size(); i++) {
+                    Entrada e = vigentes[i];
+                    out.writeUTF(nombre(archivos.get(i)));
+                    out.writeLong(e.tamano);
+                    out.writeLong(e.modificado);
+                    escribirBytes(out, e.huella);
+                    out.writeLong(e.procesado);
+                    out.writeLong(e.crcPrefijo);
+                    e.parcial.escribir(out);
+                }
+            }
+        });
+    }
+
+    private static byte[] leerBytes(DataInputStream in) throws IOException {
+        int n = in.readUnsignedShort();
+        byte[] b = new byte[n];
+        in.readFully(b);
+        return b;
+    }
+
+    private static void escribirBytes(DataOutputStream out, byte[] b) throws IOException {
+        out.writeShort(b.length);
+        out.write(b);
+    }
+
+    private static String nombre(Path archivo) {
+        return archivo.getFileName().toString();
+    }
+}
@@ -0,0 +1,290 @@
+package edu.poligran.proyecto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Prueba de carga de punta a punta en una sola máquina.
+ *
+ * Mientras {@link CargaSostenida} agrega ventas a data/ventas al ritmo pedido, corre {@link Main}
+ * una y otra vez, cada corrida en su propia JVM (como la lanzaría un cron), y mide cuánto tarda y
+ * cuántas líneas por segundo procesa. Si el procesamiento da abasto, la latencia se estabiliza; si
+ * no, crece corrida tras corrida. Repitiendo con tasas crecientes se encuentra el ritmo de ingreso
+ * a partir del cual deja de dar abasto (y se compara, p. ej., una corrida completa con --anexos).
+ *
+ * Opciones:
+ *  --lineas-por-s, --archivos-por-s, --lote, --semilla   la carga, como en GenerateInfoFiles --carga
+ *  --duracion-s=N  duración de la prueba (por defecto 60)
+ *  --args="..."    opciones de Main separadas por espacios (p. ej. --args="--anexos --hilos=2")
+ *  --jvm="..."     opciones de la JVM de Main (p. ej. --jvm=-Xmx1g)
+ *  --pausa-ms=N    espera entre corridas (por defecto 0: una tras otra)
+ *  --tope-s=N      una corrida que sigue viva pasado lo que le queda a la prueba (y al menos N
+ *                  segundos, por defecto 60) se mata y cuenta como fallida
+ *  --salida=RUTA   resultados (por defecto data/prueba_carga.json; se reescribe tras cada corrida)
+ *
+ * En la salida quedan p50/p99/p999 y el histograma de la latencia de cada corrida (ms, incluido el
+ * arranque de la JVM) y de su rendimiento (líneas leídas por segundo), la tasa de carga lograda y la
+ * "tendenciaLatencia": mediana del último tercio de las corridas sobre la del primero (cerca de 1
+ * = da abasto; claramente mayor = se va atrasando). Los percentiles se calculan sobre las muestras
+ * exactas; con pocas corridas, p999 es el máximo. Main deja sus métricas, bitácora y salida de
+ * consola en data/.carga/ para no mezclarlas con las de una corrida normal.
+ */
+public class PruebaCarga {
+
+    private static final Path DIR_CORRIDAS = Main.BASE_DIR.resolve(".carga");
+    private static final Pattern LINEAS = Pattern.compile("\"lineas\":\\s*(\\d+)");
+
+    /** Límites superiores de las cubetas (serie 1-2-5); la última cubeta es +Inf. */
+    private static final double[] LIMITES_MS = serie125(10, 100_000);
+    private static final double[] LIMITES_LINEAS_S = serie125(1_000, 100_000_000);
+
+    public static void main(String[] args) {
+        ExecutorService hilo = Executors.newSingleThreadExecutor();
+        try {
+            Opciones op = Opciones.parsear(args, "duracion-s", "pausa-ms", "tope-s", "args", "jvm", "salida",
+                    "lineas-por-s", "archivos-por-s", "lote", "semilla");
+            long duracion = TimeUnit.SECONDS.toNanos(op.largo("duracion-s", 60));
+            if (duracion <= 0) throw new IllegalArgumentException("--duracion-s debe ser > 0");
+            long pausaMs = op.largo("pausa-ms", 0);
+            if (pausaMs < 0) throw new IllegalArgumentException("--pausa-ms no puede ser negativo: " + pausaMs);
+            long topeS = op.largo("tope-s", 60);
+            if (topeS <= 0) throw new IllegalArgumentException("--tope-s debe ser > 0");
+            List<String> argsMain = partir(op.texto("args", ""));
+            List<String> jvm = partir(op.texto("jvm", ""));
+            Path salida = Paths.get(op.texto("salida", Main.BASE_DIR.resolve("prueba_carga.json").toString()));
+
+            CargaSostenida carga = GenerateInfoFiles.nuevaCarga(op, Main.PRODUCTOS_FILE, Main.VENDEDORES_FILE,
+                    Main.VENTAS_DIR);
+            Files.createDirectories(DIR_CORRIDAS);
+            Future<Void> escritor = hilo.submit(() -> {
+                carga.ejecutar(0);
+                return null;
+            });
+
+            Resumen r = new Resumen(op.decimal("lineas-por-s", 1000), op.decimal("archivos-por-s", 1),
+                    String.join(" ", argsMain));
+            long inicio = System.nanoTime();
+            System.out.println("⏱️  Prueba de carga: Main " + r.argsMain + " contra " + Main.VENTAS_DIR.toAbsolutePath());
+            while (System.nanoTime() - inicio < duracion) {
+                if (escritor.isDone()) Main.esperar(escritor); // la carga falló: se informa la causa
+                long quedanS = TimeUnit.NANOSECONDS.toSeconds(duracion - (System.nanoTime() - inicio));
+                corrida(jvm, argsMain, Math.max(topeS, quedanS), r);
+                r.segundos = (System.nanoTime() - inicio) / 1e9;
+                r.carga(carga);
+                EscrituraAtomica.reemplazar(salida, tmp -> Files.write(tmp, r.json().getBytes(StandardCharsets.UTF_8)));
+                if (pausaMs > 0) Thread.sleep(pausaMs);
+            }
+            carga.detener();
+            Main.esperar(escritor);
+            r.carga(carga);
+            EscrituraAtomica.reemplazar(salida, tmp -> Files.write(tmp, r.json().getBytes(StandardCharsets.UTF_8)));
+
+            System.out.println("✅ " + r.latencias.size() + " corrida(s), " + r.fallidas + " fallida(s); "
+                    + GenerateInfoFiles.resumenCarga(carga));
+            System.out.println("ℹ️  Latencia p50/p99/p999: " + ms(r.latencias, 0.50) + " / " + ms(r.latencias, 0.99)
+                    + " / " + ms(r.latencias, 0.999) + " ms. Resultados en " + salida.toAbsolutePath());
+        } catch (Exception ex) {
+            System.err.println("❌ Error en la prueba de carga: " + ex.getMessage());
+            ex.printStackTrace();
+        } finally {
+            hilo.shutdownNow();
+        }
+    }
+
+    /**
+     * Una corrida de Main en su propia JVM; suma su latencia y su rendimiento a 'r'. Si no termina
+     * en 'topeS' segundos (colgada, o esperando algo que no llega) se mata y cuenta como fallida.
+     */
+    private static void corrida(List<String> jvm, List<String> argsMain, long topeS, Resumen r)
+            throws IOException, InterruptedException {
+        Path metricas = DIR_CORRIDAS.resolve("metricas.json");
+        Files.deleteIfExists(metricas);
+
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.addAll(jvm);
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(Main.class.getName());
+        cmd.addAll(argsMain);
+        cmd.add("--metricas=" + DIR_CORRIDAS);
+        cmd.add("--log=" + DIR_CORRIDAS.resolve("log.txt"));
+        ProcessBuilder pb = new ProcessBuilder(cmd).redirectErrorStream(true)
+                .redirectOutput(DIR_CORRIDAS.resolve("consola.txt").toFile());
+
+        long t0 = System.nanoTime();
+        Process proceso = pb.start();
+        boolean termino;
+        try {
+            termino = proceso.waitFor(topeS, TimeUnit.SECONDS);
+        } finally {
+            if (proceso.isAlive()) {
+                proceso.destroyForcibly(); // también si nos interrumpen: no queda una JVM huérfana
+                proceso.waitFor(5, TimeUnit.SECONDS);
+            }
+        }
+        long nanos = System.nanoTime() - t0;
+
+        // Main informa sus errores por consola sin cambiar el código de salida: sin métricas, falló
+        Long lineas = termino && proceso.exitValue() == 0 ? lineasLeidas(metricas) : null;
+        if (lineas == null) {
+            r.fallidas++;
+            System.out.println("⚠️  Corrida " + (r.latencias.size() + r.fallidas) + " fallida"
+                    + (termino ? "" : " (sin terminar en " + topeS + " s; se detuvo)") + " (ver "
+                    + DIR_CORRIDAS.resolve("consola.txt") + ")");
+            return;
+        }
+        double ms = nanos / 1e6;
+        double lineasS = lineas / Math.max(1e-9, nanos / 1e9);
+        r.latencias.add(ms);
+        r.rendimientos.add(lineasS);
+        System.out.println(String.format(Locale.ROOT, "ℹ️  Corrida %d: %.0f ms, %d línea(s) leídas (%.0f líneas/s)",
+                r.latencias.size() + r.fallidas, ms, lineas, lineasS));
+    }
+
+    private static Long lineasLeidas(Path metricas) throws IOException {
+        if (!Files.exists(metricas)) return null;
+        Matcher m = LINEAS.matcher(new String(Files.readAllBytes(metricas), StandardCharsets.UTF_8));
+        return m.find() ? Long.valueOf(m.group(1)) : null;
+    }
+
+    // =========================================================================================
+    // Resultados
+    // =========================================================================================
+
+    private static final class Resumen {
+        final double objetivoLineas;
+        final double objetivoArchivos;
+        final String argsMain;
+        final List<Double> latencias = new ArrayList<>();
+        final List<Double> rendimientos = new ArrayList<>();
+        int fallidas;
+        double segundos;
+        long lineasCarga;
+        long archivosCarga;
+        double lineasPorS;
+        double archivosPorS;
+
+        Resumen(double objetivoLineas, double objetivoArchivos, String argsMain) {
+            this.objetivoLineas = objetivoLineas;
+            this.objetivoArchivos = objetivoArchivos;
+            this.argsMain = argsMain;
+        }
+
+        void carga(CargaSostenida c) {
+            lineasCarga = c.lineas();
+            archivosCarga = c.archivos();
+            lineasPorS = c.lineasPorSegundo();
+            archivosPorS = c.archivosPorSegundo();
+        }
+
+        String json() {
+            StringBuilder sb = new StringBuilder(2048);
+            sb.append("{\n");
+            sb.append("  \"marcaTiempo\": \"").append(Instant.now()).append("\",\n");
+            sb.append("  \"argsMain\": \"").append(argsMain.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\n");
+            sb.append("  \"segundos\": ").append(num(segundos)).append(",\n");
+            sb.append("  \"carga\": {\n");
+            sb.append("    \"objetivoLineasPorSegundo\": ").append(num(objetivoLineas)).append(",\n");
+            sb.append("    \"objetivoArchivosPorSegundo\": ").append(num(objetivoArchivos)).append(",\n");
+            sb.append("    \"lineas\": ").append(lineasCarga).append(",\n");
+            sb.append("    \"archivos\": ").append(archivosCarga).append(",\n");
+            sb.append("    \"lineasPorSegundo\": ").append(num(lineasPorS)).append(",\n");
+            sb.append("    \"archivosPorSegundo\": ").append(num(archivosPorS)).append("\n");
+            sb.append("  },\n");
+            sb.append("  \"corridas\": ").append(latencias.size()).append(",\n");
+            sb.append("  \"fallidas\": ").append(fallidas).append(",\n");
+            sb.append("  \"latenciaMs\": ");
+            histograma(sb, latencias, LIMITES_MS);
+            sb.append(",\n  \"lineasPorSegundo\": ");
+            histograma(sb, rendimientos, LIMITES_LINEAS_S);
+            sb.append(",\n  \"tendenciaLatencia\": ").append(tendencia()).append("\n");
+            sb.append("}\n");
+            return sb.toString();
+        }
+
+        /** Mediana del último tercio de las latencias sobre la del primero ("null" con menos de 6 corridas). */
+        private String tendencia() {
+            int tercio = latencias.size() / 3;
+            if (tercio < 2) return "null";
+            double primero = percentil(latencias.subList(0, tercio), 0.5);
+            double ultimo = percentil(latencias.subList(latencias.size() - tercio, latencias.size()), 0.5);
+            return num(ultimo / Math.max(1e-9, primero));
+        }
+    }
+
+    private static void histograma(StringBuilder sb, List<Double> muestras, double[] limites) {
+        long[] conteos = new long[limites.length + 1];
+        for (double v : muestras) {
+            int i = 0;
+            while (i < limites.length && v > limites[i]) i++;
+            conteos[i]++;
+        }
+        sb.append("{\n");
+        sb.append("    \"p50\": ").append(percentilJson(muestras, 0.50)).append(",\n");
+        sb.append("    \"p99\": ").append(percentilJson(muestras, 0.99)).append(",\n");
+        sb.append("    \"p999\": ").append(percentilJson(muestras, 0.999)).append(",\n");
+        sb.append("    \"max\": ").append(percentilJson(muestras, 1)).append(",\n");
+        sb.append("    \"limites\": [");
+        for (int i = 0; i < limites.length; i++) sb.append(i == 0 ? "" : ", ").append(num(limites[i]));
+        sb.append("],\n    \"conteos\": [");
+        for (int i = 0; i < conteos.length; i++) sb.append(i == 0 ? "" : ", ").append(conteos[i]);
+        sb.append("]\n  }");
+    }
+
+    // =========================================================================================
+    // Utilidades
+    // =========================================================================================
+
+    /** Percentil por rango más cercano sobre las muestras exactas. */
+    private static double percentil(List<Double> muestras, double q) {
+        List<Double> orden = new ArrayList<>(muestras);
+        Collections.sort(orden);
+        int i = (int) Math.ceil(q * orden.size()) - 1;
+        return orden.get(Math.max(0, Math.min(orden.size() - 1, i)));
+    }
+
+    private static String percentilJson(List<Double> muestras, double q) {
+        return muestras.isEmpty() ? "null" : num(percentil(muestras, q));
+    }
+
+    private static String ms(List<Double> latencias, double q) {
+        return latencias.isEmpty() ? "-" : String.format(Locale.ROOT, "%.0f", percentil(latencias, q));
+    }
+
+    private static double[] serie125(double desde, double hasta) {
+        List<Double> out = new ArrayList<>();
+        for (double base = desde; base <= hasta; base *= 10) {
+            for (int f : new int[]{1, 2, 5}) if (base * f <= hasta) out.add(base * f);
+        }
+        double[] l = new double[out.size()];
+        for (int i = 0; i < l.length; i++) l[i] = out.get(i);
+        return l;
+    }
+
+    private static List<String> partir(String s) {
+        List<String> out = new ArrayList<>();
+        for (String p : s.trim().split("\\s+")) if (!p.isEmpty()) out.add(p);
+        return out;
+    }
+
+    private static String num(double v) {
+        return BigDecimal.valueOf(v).setScale(3, RoundingMode.HALF_UP).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,292 @@
+package edu.poligran.proyecto;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reporte en formato binario columnar (Main --binario): reporte_vendedores.bin y reporte_productos.bin,
+ * con las mismas filas y en el mismo orden que los CSV, para procesos que sólo leen algunas columnas
+ * o las primeras filas y no quieren volver a interpretar BOM, ';' y decimales en texto.
+ *
+ * Formato v1 (big-endian; cada columna es un arreglo de ancho fijo, así que la fila r está en
+ * inicio + r x ancho y se accede sin recorrer las anteriores):
+ *   cabecera de 64 bytes:
+ *     int MAGICO "RCOL", int VERSION, int tipo (1 = vendedores, 2 = productos), int filas n,
+ *     int palabras d, int 0 (reservado),
+ *     long inicio centavos, long inicio nombres, long inicio cantidades (0 en vendedores),
+ *     long inicio diccionario, long inicio textos
+ *   long[n] centavos   vendedores: total recaudado; productos: precio unitario
+ *   int[n]  nombres    índice en el diccionario (NombreCompleto, o la clave "TipoDoc;NumeroDoc" de
+ *                      un vendedor que no está en vendedores.csv, como en el CSV)
+ *   int[n]  cantidades sólo productos: cantidad total vendida
+ *   int[d+1]           diccionario: inicio de cada palabra dentro de los textos (la última = largo total)
+ *   bytes              textos UTF-8 de las palabras, sin separadores
+ * Los nombres repetidos se guardan una sola vez. El archivo completo cabe en un solo mapeo (< 2 GiB).
+ *
+ * {@link #abrir(Path)} mapea el archivo y sólo valida la cabecera: abrir un reporte de millones de
+ * filas no depende de su tamaño, y cada lectura toca sólo las páginas que necesita.
+ */
+public final class ReporteColumnar {
+
+    private static final int MAGICO = 0x52434F4C; // "RCOL"
+    private static final int VERSION = 1;
+    private static final int CABECERA = 64;
+
+    static final int TIPO_VENDEDORES = 1;
+    static final int TIPO_PRODUCTOS = 2;
+
+    private final ByteBuffer buf;
+    private final int tipo;
+    private final int filas;
+    private final int palabras;
+    private final int centavos;
+    private final int nombres;
+    private final int cantidades;
+    private final int diccionario;
+    private final int textos;
+
+    private ReporteColumnar(ByteBuffer buf, Path archivo) throws IOException {
+        this.buf = buf;
+        if (buf.capacity() < CABECERA || buf.getInt(0) != MAGICO) {
+            throw new IOException("No es un reporte columnar: " + archivo);
+        }
+        if (buf.getInt(4) != VERSION) {
+            throw new IOException("Versión de reporte columnar no soportada (" + buf.getInt(4) + "): " + archivo);
+        }
+        tipo = buf.getInt(8);
+        filas = buf.getInt(12);
+        palabras = buf.getInt(16);
+        if ((tipo != TIPO_VENDEDORES && tipo != TIPO_PRODUCTOS) || filas < 0 || palabras < 0) {
+            throw new IOException("Cabecera de reporte columnar inválida: " + archivo);
+        }
+        centavos = inicio(24, 8L * filas, archivo);
+        nombres = inicio(32, 4L * filas, archivo);
+        cantidades = tipo == TIPO_PRODUCTOS ? inicio(40, 4L * filas, archivo) : 0;
+        diccionario = inicio(48, 4L * (palabras + 1L), archivo);
+        textos = inicio(56, 0, archivo);
+        comprobarDiccionario(archivo);
+    }
+
+    /** Inicio de una sección leído de la cabecera, comprobando que sus 'largo' bytes estén en el archivo. */
+    private int inicio(int posCabecera, long largo, Path archivo) throws IOException {
+        long inicio = buf.getLong(posCabecera);
+        if (inicio < CABECERA || inicio + largo > buf.capacity()) {
+            throw new IOException("Reporte columnar incompleto: " + archivo);
+        }
+        return (int) inicio;
+    }
+
+    /**
+     * Los inicios del diccionario empiezan en 0, no bajan y la última entrada es el largo de los
+     * textos: así {@link #palabra} nunca lee fuera de la sección de textos.
+     */
+    private void comprobarDiccionario(Path archivo) throws IOException {
+        int largoTextos = buf.capacity() - textos;
+        int anterior = 0;
+        for (int i = 0; i <= palabras; i++) {
+            int inicio = buf.getInt(diccionario + 4 * i);
+            if ((i == 0 && inicio != 0) || inicio < anterior || inicio > largoTextos) {
+                throw new IOException("Diccionario dañado (palabra " + i + "): " + archivo);
+            }
+            anterior = inicio;
+        }
+        if (anterior != largoTextos) throw new IOException("Reporte columnar incompleto: " + archivo);
+    }
+
+    // =========================================================================================
+    // Lectura
+    // =========================================================================================
+
+    /** Mapea 'archivo' (sólo lectura). El mapeo se libera cuando el objeto deja de usarse. */
+    public static ReporteColumnar abrir(Path archivo) throws IOException {
+        try (FileChannel ch = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tam = ch.size();
+            if (tam > Integer.MAX_VALUE) {
+                throw new IOException("Reporte columnar demasiado grande (" + tam + " bytes): " + archivo);
+            }
+            MappedByteBuffer m = ch.map(FileChannel.MapMode.READ_ONLY, 0, tam);
+            return new ReporteColumnar(m, archivo);
+        }
+    }
+
+    /** true si es el reporte de productos (tiene cantidades); false si es el de vendedores. */
+    public boolean esProductos() {
+        return tipo == TIPO_PRODUCTOS;
+    }
+
+    public int filas() {
+        return filas;
+    }
+
+    /** Vendedores: total recaudado de la fila; productos: precio unitario. En centavos. */
+    public long centavos(int fila) {
+        return buf.getLong(centavos + 8 * comprobar(fila));
+    }
+
+    /** Cantidad total vendida (sólo en el reporte de productos). */
+    public int cantidad(int fila) {
+        if (tipo != TIPO_PRODUCTOS) throw new IllegalStateException("el reporte de vendedores no tiene cantidades");
+        return buf.getInt(cantidades + 4 * comprobar(fila));
+    }
+
+    /** NombreCompleto (vendedores) o NombreProducto de la fila. */
+    public String nombre(int fila) {
+        return palabra(indiceNombre(fila));
+    }
+
+    /** Índice del nombre de la fila en el diccionario: filas con el mismo nombre tienen el mismo índice. */
+    public int indiceNombre(int fila) {
+        return buf.getInt(nombres + 4 * comprobar(fila));
+    }
+
+    public int palabras() {
+        return palabras;
+    }
+
+    public String palabra(int i) {
+        if (i < 0 || i >= palabras) throw new IndexOutOfBoundsException("palabra " + i + " de " + palabras);
+        int desde = buf.getInt(diccionario + 4 * i);
+        int hasta = buf.getInt(diccionario + 4 * (i + 1));
+        byte[] b = new byte[hasta - desde];
+        ByteBuffer d = buf.duplicate(); // posición propia: se puede leer desde varios hilos
+        d.position(textos + desde);
+        d.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private int comprobar(int fila) {
+        if (fila < 0 || fila >= filas) throw new IndexOutOfBoundsException("fila " + fila + " de " + filas);
+        return fila;
+    }
+
+    // =========================================================================================
+    // Escritura
+    // =========================================================================================
+
+    /** Arma un reporte fila a fila (en orden de reporte) y lo escribe al final. */
+    static final class Escritor {
+        private final int tipo;
+        private final long[] centavos;
+        private final int[] nombres;
+        private final int[] cantidades;
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> palabras = new ArrayList<>();
+        private int filas;
+
+        Escritor(int tipo, int filas) {
+            this.tipo = tipo;
+            this.centavos = new long[filas];
+            this.nombres = new int[filas];
+            this.cantidades = tipo == TIPO_PRODUCTOS ? new int[filas] : null;
+        }
+
+        void fila(String nombre, long centavos, int cantidad) {
+            Integer i = indices.get(nombre);
+            if (i == null) {
+                i = palabras.size();
+                indices.put(nombre, i);
+                palabras.add(nombre);
+            }
+            this.centavos[filas] = centavos;
+            this.nombres[filas] = i;
+            if (cantidades != null) cantidades[filas] = cantidad;
+            filas++;
+        }
+
+        void escribir(Path outFile) throws IOException {
+            if (filas != centavos.length) throw new IllegalStateException(filas + " fila(s) de " + centavos.length);
+            byte[][] textos = new byte[palabras.size()][];
+            long largoTextos = 0;
+            for (int i = 0; i < textos.length; i++) {
+                textos[i] = palabras.get(i).getBytes(StandardCharsets.UTF_8);
+                largoTextos += textos[i].length;
+            }
+            long inicioCentavos = CABECERA;
+            long inicioNombres = inicioCentavos + 8L * filas;
+            long inicioCantidades = inicioNombres + 4L * filas;
+            long inicioDiccionario = inicioCantidades + (cantidades != null ? 4L * filas : 0);
+            long inicioTextos = inicioDiccionario + 4L * (textos.length + 1);
+            if (inicioTextos + largoTextos > Integer.MAX_VALUE) {
+                throw new IOException("Reporte demasiado grande para el formato columnar: "
+                        + (inicioTextos + largoTextos) + " bytes");
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), 1 << 16))) {
+                out.writeInt(MAGICO);
+                out.writeInt(VERSION);
+                out.writeInt(tipo);
+                out.writeInt(filas);
+                out.writeInt(textos.length);
+                out.writeInt(0);
+                out.writeLong(inicioCentavos);
+                out.writeLong(inicioNombres);
+                out.writeLong(cantidades != null ? inicioCantidades : 0);
+                out.writeLong(inicioDiccionario);
+                out.writeLong(inicioTextos);
+
+                for (int r = 0; r < filas; r++) out.writeLong(centavos[r]);
+                for (int r = 0; r < filas; r++) out.writeInt(nombres[r]);
+                if (cantidades != null) {
+                    for (int r = 0; r < filas; r++) out.writeInt(cantidades[r]);
+                }
+                int pos = 0;
+                for (byte[] t : textos) {
+                    out.writeInt(pos);
+                    pos += t.length;
+                }
+                out.writeInt(pos);
+                for (byte[] t : textos) out.write(t);
+            }
+        }
+    }
+
+    // =========================================================================================
+    // Consulta desde la línea de comandos
+    // =========================================================================================
+
+    /**
+     * Muestra las primeras filas de un reporte columnar, como en el CSV.
+     * Opciones: --archivo=RUTA (por defecto data/reporte_vendedores.bin)  --desde=N (por defecto 0)  --top=N (por defecto 10)
+     */
+    public static void main(String[] args) {
+        try {
+            Opciones op = Opciones.parsear(args, "archivo", "desde", "top");
+            Path archivo = Paths.get(op.texto("archivo", Main.REPORTE_VENDEDORES_BIN.toString()));
+            int desde = op.entero("desde", 0);
+            int top = op.entero("top", 10);
+
+            long t0 = System.nanoTime();
+            ReporteColumnar r = abrir(archivo);
+            long us = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - t0);
+            System.out.printf("%s: %s, %d fila(s), %d nombre(s) distinto(s); abierto en %d µs%n",
+                    archivo, r.esProductos() ? "productos" : "vendedores", r.filas(), r.palabras(), us);
+
+            int hasta = (int) Math.min(r.filas(), Math.max(0, desde) + (long) Math.max(0, top));
+            for (int f = Math.max(0, desde); f < hasta; f++) {
+                StringBuilder sb = new StringBuilder().append(f + 1).append(". ").append(r.nombre(f)).append(';')
+                        .append(BigDecimal.valueOf(r.centavos(f), Main.MONEY_SCALE).toPlainString());
+                if (r.esProductos()) sb.append(';').append(r.cantidad(f));
+                System.out.println(sb);
+            }
+        } catch (Exception ex) {
+            System.err.println("❌ Error al leer el reporte columnar: " + ex.getMessage());
+            ex.printStackTrace();
+        }
+    }
+}
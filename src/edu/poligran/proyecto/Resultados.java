@@ -0,0 +1,312 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Acumulados de una corrida (o de un hilo / archivo, cuando se usan parciales):
+ *  - dinero recaudado por vendedor, en centavos
+ *  - unidades vendidas por producto
+ *
+ * Los vendedores y productos del catálogo se acumulan en arreglos primitivos indexados por su
+ * ordinal ({@link Catalogo}); registrar una venta no crea objetos ni cajas Integer/Long.
+ * Los vendedores que no están en vendedores.csv (la venta se cuenta igual) van a un mapa aparte
+ * por clave TipoDoc;NumeroDoc, con una celda long[1] mutable.
+ *
+ * El dinero se acumula en punto fijo (long centavos, escala 2). Como los precios ya vienen con
+ * escala 2, precio * cantidad es exacto y coincide con el cálculo HALF_UP de escala 2 que se
+ * hacía con BigDecimal. Cualquier desborde se detecta (Math.multiplyExact / addExact) y aborta
+ * con ArithmeticException en vez de producir un total incorrecto.
+ */
+final class Resultados {
+    final Catalogo<Producto> productos;
+    final Catalogo<Vendedor> vendedores;
+    private final CatalogoColumnar.Productos preciosColumnares; // null con el catálogo en memoria
+
+    final long[] centavosPorVendedor;    // ordinal vendedor -> centavos
+    final boolean[] vendedorConVentas;   // distingue "sin ventas" de "ventas por $0"
+    final int[] cantidadPorProducto;     // ordinal producto -> cantidad (0 = sin ventas)
+    final Map<String, long[]> centavosVendedorDesconocido = new HashMap<>(); // clave -> {centavos}
+
+    // Diagnóstico del archivo en curso (lo reinicia iniciarArchivo); no forma parte de los totales.
+    // Lo usan las métricas y el resumen por archivo de la bitácora: los motores sólo incrementan
+    // contadores y guardan los primeros EJEMPLOS textos de cada motivo, sin escribir nada por línea.
+    static final int EJEMPLOS = 3;
+    long lineasArchivo;                  // líneas no vacías (cabecera incluida)
+    long bytesArchivo;                   // bytes que el motor leyó del disco (comprimidos, si es gzip)
+    final long[] rechazosArchivo = new long[MotivoRechazo.values().length];
+    private final String[][] ejemplos = new String[MotivoRechazo.values().length][EJEMPLOS];
+
+    // Seguimiento opcional de los ordinales con ventas, para extraer un parcial o reiniciar
+    // sin recorrer todo el catálogo (útil cuando un Resultados se reutiliza archivo por archivo).
+    private final boolean seguirTocados;
+    private int[] vendedoresTocados = new int[0];
+    private int nVendedoresTocados;
+    private int[] productosTocados = new int[0];
+    private int nProductosTocados;
+
+    Resultados(Catalogo<Producto> productos, Catalogo<Vendedor> vendedores) {
+        this(productos, vendedores, false);
+    }
+
+    Resultados(Catalogo<Producto> productos, Catalogo<Vendedor> vendedores, boolean seguirTocados) {
+        this.productos = productos;
+        this.preciosColumnares = productos instanceof CatalogoColumnar.Productos
+                ? (CatalogoColumnar.Productos) productos : null;
+        this.vendedores = vendedores;
+        this.centavosPorVendedor = new long[vendedores.tamano()];
+        this.vendedorConVentas = new boolean[vendedores.tamano()];
+        this.cantidadPorProducto = new int[productos.tamano()];
+        this.seguirTocados = seguirTocados;
+    }
+
+    /**
+     * Registra una línea de venta ya validada (producto existente y cantidad positiva).
+     * ordVend es el ordinal del vendedor, o -1 si no está en el catálogo (se usa claveVend).
+     */
+    void registrarVenta(int ordVend, String claveVend, int ordProd, int cantidad) {
+        try {
+            // Acumular dinero por vendedor
+            long precio = preciosColumnares != null ? preciosColumnares.precioCentavos(ordProd)
+                    : productos.get(ordProd).getPrecioCentavos();
+            long subtotal = Math.multiplyExact(precio, (long) cantidad);
+            if (ordVend >= 0) {
+                if (seguirTocados && !vendedorConVentas[ordVend]) anotarVendedor(ordVend);
+                centavosPorVendedor[ordVend] = Math.addExact(centavosPorVendedor[ordVend], subtotal);
+                vendedorConVentas[ordVend] = true;
+            } else {
+                long[] celda = centavosVendedorDesconocido.get(claveVend);
+                if (celda == null) {
+                    celda = new long[1];
+                    centavosVendedorDesconocido.put(claveVend, celda);
+                }
+                celda[0] = Math.addExact(celda[0], subtotal);
+            }
+
+            // Acumular cantidad por producto
+            if (seguirTocados && cantidadPorProducto[ordProd] == 0) anotarProducto(ordProd);
+            cantidadPorProducto[ordProd] = Math.addExact(cantidadPorProducto[ordProd], cantidad);
+        } catch (ArithmeticException ae) {
+            throw new ArithmeticException("Desborde al acumular la venta de " + claveVend
+                    + " (producto " + productos.clave(ordProd) + ", cantidad " + cantidad + ")");
+        }
+    }
+
+    // =========================================================================================
+    // Diagnóstico por archivo
+    // =========================================================================================
+
+    void iniciarArchivo() {
+        lineasArchivo = 0;
+        bytesArchivo = 0;
+        Arrays.fill(rechazosArchivo, 0);
+    }
+
+    /** true si todavía se guarda un ejemplo para este motivo (para no armar textos que se descartan). */
+    boolean quiereEjemplo(MotivoRechazo motivo) {
+        return rechazosArchivo[motivo.ordinal()] < EJEMPLOS;
+    }
+
+    /** Cuenta un rechazo; 'ejemplo' (puede ser null) se guarda sólo si es de los primeros. */
+    void rechazar(MotivoRechazo motivo, String ejemplo) {
+        long n = rechazosArchivo[motivo.ordinal()]++;
+        if (n < EJEMPLOS) ejemplos[motivo.ordinal()][(int) n] = ejemplo;
+    }
+
+    /** Resumen de los rechazos del archivo en curso, o null si no hubo. */
+    String resumenRechazos(Path archivo) {
+        StringBuilder sb = null;
+        for (MotivoRechazo m : MotivoRechazo.values()) {
+            long n = rechazosArchivo[m.ordinal()];
+            if (n == 0) continue;
+            if (sb == null) {
+                sb = new StringBuilder("Rechazos en ").append(archivo.getFileName()).append(": ");
+            } else {
+                sb.append("; ");
+            }
+            sb.append(m.descripcion).append(" = ").append(n);
+            String sep = " (ej.: ";
+            for (int i = 0; i < Math.min(n, EJEMPLOS); i++) {
+                String e = ejemplos[m.ordinal()][i];
+                if (e == null) continue;
+                sb.append(sep).append('"').append(e).append('"');
+                sep = ", ";
+            }
+            if (!sep.startsWith(" (")) sb.append(n > EJEMPLOS ? ", ...)" : ")");
+        }
+        return sb == null ? null : sb.toString();
+    }
+
+    /**
+     * Agrega al diagnóstico del archivo en curso el de otro acumulado que leyó una parte POSTERIOR
+     * del mismo archivo (tramos de {@link LectorVentasPorTramos}): los ejemplos conservan el orden.
+     */
+    void sumarDiagnostico(Resultados otro) {
+        lineasArchivo += otro.lineasArchivo;
+        bytesArchivo += otro.bytesArchivo;
+        for (int m = 0; m < rechazosArchivo.length; m++) {
+            long n = otro.rechazosArchivo[m];
+            for (int i = 0; i < Math.min(n, EJEMPLOS); i++) {
+                long k = rechazosArchivo[m] + i;
+                if (k < EJEMPLOS) ejemplos[m][(int) k] = otro.ejemplos[m][i];
+            }
+            rechazosArchivo[m] += n;
+        }
+    }
+
+    /** Suma en este acumulado los parciales de otro (usado al unir los resultados de cada hilo). */
+    void fusionar(Resultados otro) {
+        try {
+            for (int v = 0; v < centavosPorVendedor.length; v++) {
+                if (!otro.vendedorConVentas[v]) continue;
+                if (seguirTocados && !vendedorConVentas[v]) anotarVendedor(v);
+                centavosPorVendedor[v] = Math.addExact(centavosPorVendedor[v], otro.centavosPorVendedor[v]);
+                vendedorConVentas[v] = true;
+            }
+            for (int p = 0; p < cantidadPorProducto.length; p++) {
+                if (otro.cantidadPorProducto[p] == 0) continue;
+                if (seguirTocados && cantidadPorProducto[p] == 0) anotarProducto(p);
+                cantidadPorProducto[p] = Math.addExact(cantidadPorProducto[p], otro.cantidadPorProducto[p]);
+            }
+            for (Map.Entry<String, long[]> e : otro.centavosVendedorDesconocido.entrySet()) {
+                long[] celda = centavosVendedorDesconocido.get(e.getKey());
+                if (celda == null) {
+                    centavosVendedorDesconocido.put(e.getKey(), new long[]{e.getValue()[0]});
+                } else {
+                    celda[0] = Math.addExact(celda[0], e.getValue()[0]);
+                }
+            }
+        } catch (ArithmeticException ae) {
+            throw new ArithmeticException("Desborde al fusionar acumulados parciales");
+        }
+    }
+
+    /**
+     * Suma un parcial disperso (por claves). Los vendedores que no están en el catálogo van al
+     * mapa de desconocidos; un producto ausente del catálogo es un error de consistencia.
+     */
+    void sumar(ParcialVentas parcial) {
+        try {
+            for (int i = 0; i < parcial.clavesVendedor.length; i++) {
+                String clave = parcial.clavesVendedor[i];
+                int v = vendedores.ordinal(clave);
+                if (v >= 0) {
+                    if (seguirTocados && !vendedorConVentas[v]) anotarVendedor(v);
+                    centavosPorVendedor[v] = Math.addExact(centavosPorVendedor[v], parcial.centavos[i]);
+                    vendedorConVentas[v] = true;
+                } else {
+                    long[] celda = centavosVendedorDesconocido.get(clave);
+                    if (celda == null) {
+                        centavosVendedorDesconocido.put(clave, new long[]{parcial.centavos[i]});
+                    } else {
+                        celda[0] = Math.addExact(celda[0], parcial.centavos[i]);
+                    }
+                }
+            }
+            for (int i = 0; i < parcial.idsProducto.length; i++) {
+                int p = productos.ordinal(parcial.idsProducto[i]);
+                if (p < 0) {
+                    throw new IllegalArgumentException("El producto " + parcial.idsProducto[i]
+                            + " del parcial no existe en el catálogo actual");
+                }
+                if (seguirTocados && cantidadPorProducto[p] == 0) anotarProducto(p);
+                cantidadPorProducto[p] = Math.addExact(cantidadPorProducto[p], parcial.cantidades[i]);
+            }
+        } catch (ArithmeticException ae) {
+            throw new ArithmeticException("Desborde al sumar un acumulado parcial");
+        }
+    }
+
+    /** Extrae las entradas con ventas como parcial disperso (por claves). */
+    ParcialVentas aParcial() {
+        int[] vs = seguirTocados ? Arrays.copyOf(vendedoresTocados, nVendedoresTocados) : conVentas();
+        int[] ps = seguirTocados ? Arrays.copyOf(productosTocados, nProductosTocados) : conCantidad();
+
+        int nv = vs.length + centavosVendedorDesconocido.size();
+        String[] claves = new String[nv];
+        long[] centavos = new long[nv];
+        int i = 0;
+        for (int v : vs) {
+            claves[i] = vendedores.clave(v);
+            centavos[i++] = centavosPorVendedor[v];
+        }
+        for (Map.Entry<String, long[]> e : centavosVendedorDesconocido.entrySet()) {
+            claves[i] = e.getKey();
+            centavos[i++] = e.getValue()[0];
+        }
+
+        String[] ids = new String[ps.length];
+        int[] cantidades = new int[ps.length];
+        for (int j = 0; j < ps.length; j++) {
+            ids[j] = productos.clave(ps[j]);
+            cantidades[j] = cantidadPorProducto[ps[j]];
+        }
+        return new ParcialVentas(claves, centavos, ids, cantidades);
+    }
+
+    /** Deja el acumulado en cero para reutilizarlo (con seguimiento sólo toca lo que cambió). */
+    void reiniciar() {
+        if (seguirTocados) {
+            for (int j = 0; j < nVendedoresTocados; j++) {
+                centavosPorVendedor[vendedoresTocados[j]] = 0;
+                vendedorConVentas[vendedoresTocados[j]] = false;
+            }
+            for (int j = 0; j < nProductosTocados; j++) cantidadPorProducto[productosTocados[j]] = 0;
+            nVendedoresTocados = 0;
+            nProductosTocados = 0;
+        } else {
+            Arrays.fill(centavosPorVendedor, 0);
+            Arrays.fill(vendedorConVentas, false);
+            Arrays.fill(cantidadPorProducto, 0);
+        }
+        centavosVendedorDesconocido.clear();
+    }
+
+    private int[] conVentas() {
+        int n = 0;
+        int[] out = new int[centavosPorVendedor.length];
+        for (int v = 0; v < out.length; v++) if (vendedorConVentas[v]) out[n++] = v;
+        return Arrays.copyOf(out, n);
+    }
+
+    private int[] conCantidad() {
+        int n = 0;
+        int[] out = new int[cantidadPorProducto.length];
+        for (int p = 0; p < out.length; p++) if (cantidadPorProducto[p] != 0) out[n++] = p;
+        return Arrays.copyOf(out, n);
+    }
+
+    private void anotarVendedor(int v) {
+        if (nVendedoresTocados == vendedoresTocados.length) {
+            vendedoresTocados = Arrays.copyOf(vendedoresTocados, Math.max(4, nVendedoresTocados * 2));
+        }
+        vendedoresTocados[nVendedoresTocados++] = v;
+    }
+
+    private void anotarProducto(int p) {
+        if (nProductosTocados == productosTocados.length) {
+            productosTocados = Arrays.copyOf(productosTocados, Math.max(16, nProductosTocados * 2));
+        }
+        productosTocados[nProductosTocados++] = p;
+    }
+
+    /** true si ambos acumulados tienen exactamente los mismos totales (el diagnóstico no cuenta). */
+    boolean igualA(Resultados otro) {
+        if (!Arrays.equals(centavosPorVendedor, otro.centavosPorVendedor)
+                || !Arrays.equals(vendedorConVentas, otro.vendedorConVentas)
+                || !Arrays.equals(cantidadPorProducto, otro.cantidadPorProducto)
+                || centavosVendedorDesconocido.size() != otro.centavosVendedorDesconocido.size()) {
+            return false;
+        }
+        for (Map.Entry<String, long[]> e : centavosVendedorDesconocido.entrySet()) {
+            long[] celda = otro.centavosVendedorDesconocido.get(e.getKey());
+            if (celda == null || celda[0] != e.getValue()[0]) return false;
+        }
+        return true;
+    }
+}
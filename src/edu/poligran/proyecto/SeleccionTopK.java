@@ -0,0 +1,81 @@
+package edu.poligran.proyecto;
+
+import java.util.Arrays;
+
+/**
+ * Selección de los K mejores índices (ordinales) con un montículo acotado de int primitivos:
+ * O(n log k) en tiempo y O(k) en memoria, sin cajas Integer ni objetos por entrada.
+ *
+ * El orden lo define un {@link Comparador} que debe ser TOTAL (con desempate por clave), de modo
+ * que el resultado es determinista sin importar el orden en que se ofrezcan los índices.
+ * Con k = Integer.MAX_VALUE equivale a ordenar todo (heapsort).
+ */
+final class SeleccionTopK {
+
+    /** Negativo si 'a' va antes que 'b' en el reporte. */
+    interface Comparador {
+        int comparar(int a, int b);
+    }
+
+    private final int k;
+    private final Comparador cmp;
+    private int[] monticulo; // la raíz es el PEOR de los que se conservan
+    private int n;
+
+    SeleccionTopK(int k, Comparador cmp) {
+        if (k <= 0) throw new IllegalArgumentException("k debe ser > 0: " + k);
+        this.k = k;
+        this.cmp = cmp;
+        this.monticulo = new int[Math.min(k, 1024)];
+    }
+
+    void ofrecer(int x) {
+        if (n < k) {
+            if (n == monticulo.length) {
+                monticulo = Arrays.copyOf(monticulo, (int) Math.min(k, 2L * monticulo.length));
+            }
+            monticulo[n] = x;
+            subir(n++);
+        } else if (cmp.comparar(x, monticulo[0]) < 0) {
+            monticulo[0] = x;
+            bajar(0);
+        }
+    }
+
+    /** Devuelve los seleccionados del mejor al peor. Vacía la selección. */
+    int[] ordenados() {
+        int[] out = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            out[i] = monticulo[0];
+            monticulo[0] = monticulo[--n];
+            bajar(0);
+        }
+        return out;
+    }
+
+    private void subir(int i) {
+        int x = monticulo[i];
+        while (i > 0) {
+            int padre = (i - 1) >>> 1;
+            if (cmp.comparar(x, monticulo[padre]) <= 0) break;
+            monticulo[i] = monticulo[padre];
+            i = padre;
+        }
+        monticulo[i] = x;
+    }
+
+    private void bajar(int i) {
+        if (n == 0) return;
+        int x = monticulo[i];
+        int mitad = n >>> 1;
+        while (i < mitad) {
+            int hijo = 2 * i + 1;
+            int der = hijo + 1;
+            if (der < n && cmp.comparar(monticulo[der], monticulo[hijo]) > 0) hijo = der;
+            if (cmp.comparar(monticulo[hijo], x) <= 0) break;
+            monticulo[i] = monticulo[hijo];
+            i = hijo;
+        }
+        monticulo[i] = x;
+    }
+}
@@ -0,0 +1,333 @@
+package edu.poligran.proyecto;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP local (sólo 127.0.0.1) que expone {@link ConsultasVentas} en JSON.
+ *
+ *   GET  /vendedores?top=N                       como reporte_vendedores.csv (N primeras filas)
+ *   GET  /productos?top=N                        como reporte_productos.csv
+ *   GET  /vendedor?clave=CC%3B123&top=N&orden=ingreso|cantidad   total y top de productos
+ *   GET  /producto?id=P0001&top=N                total y top de vendedores del producto
+ *   GET  /venta?vendedor=CC%3B123&producto=P0001 unidades e ingreso de esa combinación
+ *   POST /recargar                               vuelve a leer los CSV y vacía la caché
+ *
+ * (El ';' de la clave del vendedor va codificado como %3B.) Las respuestas se guardan en una caché
+ * LRU por URL con ETag: una consulta repetida no vuelve a calcular nada y un cliente que envía
+ * If-None-Match recibe 304. Como el índice es inmutable, la caché sólo se vacía al recargar; el
+ * índice y su caché se reemplazan juntos, así que nunca se sirve una respuesta del índice anterior.
+ *
+ * Opciones: --puerto=N (8080)  --hilos=N  --lector=flujo|mapeado  --cache=N (1024 respuestas)  --log=RUTA
+ *           --catalogo=memoria|columnar  --consolidar (omite archivos de ventas duplicados)
+ */
+public class ServidorConsultas {
+
+    private static final int TOP_POR_DEFECTO = 10;
+
+    /** Índice vigente y su caché: se reemplazan juntos al recargar. */
+    private static final class Estado {
+        final ConsultasVentas consultas;
+        final long generacion;
+        final Map<String, Respuesta> cache;
+
+        Estado(ConsultasVentas consultas, long generacion, int capacidad) {
+            this.consultas = consultas;
+            this.generacion = generacion;
+            this.cache = new LinkedHashMap<String, Respuesta>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Respuesta> eldest) {
+                    return size() > capacidad;
+                }
+            };
+        }
+    }
+
+    private static final class Respuesta {
+        final int estado;
+        final byte[] cuerpo;
+        final String etag;
+
+        Respuesta(int estado, String json, long generacion) {
+            this.estado = estado;
+            this.cuerpo = json.getBytes(StandardCharsets.UTF_8);
+            this.etag = "\"" + generacion + "-" + Integer.toHexString(json.hashCode()) + "\"";
+        }
+    }
+
+    /** Error de la consulta con su código HTTP (400 o 404). */
+    private static final class ErrorConsulta extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int estado;
+
+        ErrorConsulta(int estado, String mensaje) {
+            super(mensaje);
+            this.estado = estado;
+        }
+    }
+
+    private final String motor;
+    private final boolean columnar;
+    private final boolean consolidar;
+    private final int hilos;
+    private final int capacidadCache;
+    private volatile Estado estado;
+
+    private ServidorConsultas(String motor, boolean columnar, boolean consolidar, int hilos, int capacidadCache) {
+        this.motor = motor;
+        this.columnar = columnar;
+        this.consolidar = consolidar;
+        this.hilos = hilos;
+        this.capacidadCache = capacidadCache;
+    }
+
+    public static void main(String[] args) {
+        try {
+            Opciones op = Opciones.parsear(args, "puerto", "hilos", "cache", "log", "lector", "catalogo", "consolidar");
+            int puerto = op.entero("puerto", 8080);
+            int hilos = op.entero("hilos", Runtime.getRuntime().availableProcessors());
+            if (hilos <= 0) throw new IllegalArgumentException("--hilos debe ser > 0: " + hilos);
+            int capacidad = op.entero("cache", 1024);
+            if (capacidad < 0) throw new IllegalArgumentException("--cache no puede ser negativo: " + capacidad);
+            Bitacora.iniciar(Paths.get(op.texto("log", Main.LOG_FILE.toString())));
+
+            ServidorConsultas s = new ServidorConsultas(op.texto("lector", "flujo"), Main.catalogoColumnar(op),
+                    op.bandera("consolidar"), hilos, capacidad);
+            s.recargar();
+
+            HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto), 0);
+            ExecutorService pool = Executors.newFixedThreadPool(hilos);
+            http.setExecutor(pool);
+            http.createContext("/", s::atender);
+            http.start();
+            Bitacora.info("Consultas en http://" + http.getAddress().getHostString() + ":"
+                    + http.getAddress().getPort() + "/ (Ctrl+C para terminar)");
+        } catch (Exception ex) {
+            Bitacora.error("Error al iniciar el servidor de consultas: " + ex.getMessage());
+            Bitacora.cerrar();
+            ex.printStackTrace();
+        }
+    }
+
+    private synchronized void recargar() throws IOException {
+        long t0 = System.nanoTime();
+        ConsultasVentas c = ConsultasVentas.cargar(Main.PRODUCTOS_FILE, Main.VENDEDORES_FILE, Main.VENTAS_DIR,
+                motor, columnar, consolidar, hilos);
+        long generacion = estado == null ? 1 : estado.generacion + 1;
+        estado = new Estado(c, generacion, capacidadCache);
+        Bitacora.info("Índice de consultas listo (generación " + generacion + ") en "
+                + (System.nanoTime() - t0) / 1_000_000 + " ms.");
+    }
+
+    // =========================================================================================
+    // HTTP
+    // =========================================================================================
+
+    private void atender(HttpExchange ex) throws IOException {
+        try {
+            String ruta = ex.getRequestURI().getPath();
+            if (ruta.equals("/recargar")) {
+                if (!"POST".equals(ex.getRequestMethod())) {
+                    enviar(ex, new Respuesta(405, error("Use POST"), 0), false);
+                    return;
+                }
+                recargar();
+                enviar(ex, new Respuesta(200, "{\"generacion\": " + estado.generacion + "}\n", 0), false);
+                return;
+            }
+            if (!"GET".equals(ex.getRequestMethod())) {
+                enviar(ex, new Respuesta(405, error("Use GET"), 0), false);
+                return;
+            }
+
+            Estado e = estado;
+            String clave = ex.getRequestURI().getRawPath() + "?" + ex.getRequestURI().getRawQuery();
+            Respuesta r;
+            synchronized (e.cache) {
+                r = e.cache.get(clave);
+            }
+            if (r == null) {
+                r = responder(e, ruta, parametros(ex.getRequestURI().getRawQuery()));
+                if (r.estado == 200 || r.estado == 404) {
+                    synchronized (e.cache) {
+                        e.cache.put(clave, r);
+                    }
+                }
+            }
+            String siNoCoincide = ex.getRequestHeaders().getFirst("If-None-Match");
+            enviar(ex, r, r.etag.equals(siNoCoincide));
+        } catch (Exception err) {
+            Bitacora.warn("Consulta fallida " + ex.getRequestURI() + ": " + err.getMessage());
+            enviar(ex, new Respuesta(500, error(String.valueOf(err.getMessage())), 0), false);
+        } finally {
+            ex.close();
+        }
+    }
+
+    private static void enviar(HttpExchange ex, Respuesta r, boolean noModificado) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.getResponseHeaders().set("ETag", r.etag);
+        if (noModificado) {
+            ex.sendResponseHeaders(304, -1);
+            return;
+        }
+        ex.sendResponseHeaders(r.estado, r.cuerpo.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(r.cuerpo);
+        }
+    }
+
+    private static Map<String, String> parametros(String query) throws UnsupportedEncodingException {
+        Map<String, String> out = new HashMap<>();
+        if (query == null || query.isEmpty()) return out;
+        for (String par : query.split("&")) {
+            int eq = par.indexOf('=');
+            String k = URLDecoder.decode(eq < 0 ? par : par.substring(0, eq), "UTF-8");
+            String v = eq < 0 ? "" : URLDecoder.decode(par.substring(eq + 1), "UTF-8");
+            out.put(k, v);
+        }
+        return out;
+    }
+
+    // =========================================================================================
+    // Consultas -> JSON
+    // =========================================================================================
+
+    private static Respuesta responder(Estado e, String ruta, Map<String, String> q) {
+        ConsultasVentas c = e.consultas;
+        try {
+            String json;
+            switch (ruta) {
+                case "/vendedores":
+                    json = "{\"vendedores\": " + filas(c.topVendedores(top(q)), true) + "}\n";
+                    break;
+                case "/productos":
+                    json = "{\"productos\": " + filas(c.topProductos(top(q)), false) + "}\n";
+                    break;
+                case "/vendedor": {
+                    int v = vendedor(c, requerido(q, "clave"));
+                    ConsultasVentas.Criterio criterio = criterio(q.get("orden"));
+                    json = "{\"clave\": " + texto(c.claveVendedor(v))
+                            + ", \"nombre\": " + texto(c.nombreVendedor(v))
+                            + ", \"total\": " + dinero(c.totalVendedor(v))
+                            + ", \"productos\": " + filas(c.topProductosDeVendedor(v, top(q), criterio), false) + "}\n";
+                    break;
+                }
+                case "/producto": {
+                    int p = producto(c, requerido(q, "id"));
+                    json = "{\"id\": " + texto(c.productos.clave(p))
+                            + ", \"nombre\": " + texto(c.productos.get(p).getNombre())
+                            + ", \"precio\": " + dinero(c.precio(p))
+                            + ", \"cantidad\": " + c.totalProducto(p)
+                            + ", \"vendedores\": " + filas(c.topVendedoresDeProducto(p, top(q)), true) + "}\n";
+                    break;
+                }
+                case "/venta": {
+                    int v = vendedor(c, requerido(q, "vendedor"));
+                    int p = producto(c, requerido(q, "producto"));
+                    json = "{\"vendedor\": " + texto(c.claveVendedor(v))
+                            + ", \"producto\": " + texto(c.productos.clave(p))
+                            + ", \"cantidad\": " + c.cantidad(v, p)
+                            + ", \"total\": " + dinero(c.centavos(v, p)) + "}\n";
+                    break;
+                }
+                default:
+                    throw new ErrorConsulta(404, "Ruta desconocida: " + ruta);
+            }
+            return new Respuesta(200, json, e.generacion);
+        } catch (ErrorConsulta err) {
+            return new Respuesta(err.estado, error(err.getMessage()), e.generacion);
+        }
+    }
+
+    private static int top(Map<String, String> q) {
+        String t = q.get("top");
+        if (t == null || t.isEmpty()) return TOP_POR_DEFECTO;
+        try {
+            int n = Integer.parseInt(t.trim());
+            if (n > 0) return n;
+        } catch (NumberFormatException ignorada) {
+            // cae al error de abajo
+        }
+        throw new ErrorConsulta(400, "top debe ser un entero > 0: " + t);
+    }
+
+    private static ConsultasVentas.Criterio criterio(String orden) {
+        if (orden == null || orden.isEmpty() || orden.equals("ingreso")) return ConsultasVentas.Criterio.INGRESO;
+        if (orden.equals("cantidad")) return ConsultasVentas.Criterio.CANTIDAD;
+        throw new ErrorConsulta(400, "orden debe ser ingreso o cantidad: " + orden);
+    }
+
+    private static String requerido(Map<String, String> q, String nombre) {
+        String v = q.get(nombre);
+        if (v == null || v.trim().isEmpty()) throw new ErrorConsulta(400, "Falta el parámetro " + nombre);
+        return v.trim();
+    }
+
+    private static int vendedor(ConsultasVentas c, String clave) {
+        int v = c.vendedor(clave);
+        if (v < 0) throw new ErrorConsulta(404, "Vendedor desconocido: " + clave);
+        return v;
+    }
+
+    private static int producto(ConsultasVentas c, String id) {
+        int p = c.producto(id);
+        if (p < 0) throw new ErrorConsulta(404, "Producto desconocido: " + id);
+        return p;
+    }
+
+    private static String filas(ConsultasVentas.Fila[] filas, boolean vendedores) {
+        StringBuilder sb = new StringBuilder(64 + filas.length * 96).append('[');
+        for (int i = 0; i < filas.length; i++) {
+            ConsultasVentas.Fila f = filas[i];
+            sb.append(i == 0 ? "\n  " : ",\n  ")
+                    .append(vendedores ? "{\"clave\": " : "{\"id\": ").append(texto(f.clave))
+                    .append(", \"nombre\": ").append(texto(f.nombre))
+                    .append(", \"cantidad\": ").append(f.cantidad)
+                    .append(", \"total\": ").append(dinero(f.centavos)).append('}');
+        }
+        return sb.append(filas.length == 0 ? "]" : "\n]").toString();
+    }
+
+    private static String dinero(long centavos) {
+        return BigDecimal.valueOf(centavos, Main.MONEY_SCALE).toPlainString();
+    }
+
+    private static String error(String mensaje) {
+        return "{\"error\": " + texto(mensaje) + "}\n";
+    }
+
+    /** Cadena JSON con comillas y escapes. */
+    private static String texto(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
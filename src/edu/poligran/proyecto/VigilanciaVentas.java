@@ -0,0 +1,212 @@
+package edu.poligran.proyecto;
+
+import edu.poligran.proyecto.model.Producto;
+import edu.poligran.proyecto.model.Vendedor;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Modo vigilancia (--vigilar): proceso de larga duración que mantiene los reportes al día.
+ *
+ * Usa un WatchService sobre data/ventas y sobre data/ (sólo productos.csv y vendedores.csv):
+ *  - archivo de ventas creado o modificado -> se vuelve a procesar SOLO ese archivo;
+ *  - archivo de ventas borrado             -> se descarta su aporte;
+ *  - con --consolidar, duplicado exacto de otro del mismo vendedor -> no aporta
+ *    (ver {@link ConsolidacionVentas});
+ *  - cambio en un catálogo (o eventos perdidos, OVERFLOW) -> recarga y reprocesa todo.
+ *
+ * En memoria se guarda el aporte de cada archivo ({@link ParcialVentas}); los totales se
+ * reconstruyen sumando esos parciales y los reportes se reescriben de forma atómica.
+ * Las escrituras se agrupan (debounce): se espera a que pasen --espera-ms sin eventos, pero
+ * nunca más de 5 veces ese tiempo desde el primer cambio pendiente, para que un flujo
+ * continuo de archivos no posponga los reportes indefinidamente.
+ */
+final class VigilanciaVentas {
+
+    private static final int ESPERA_MAXIMA_FACTOR = 5;
+
+    private final String motor;
+    private final long esperaNanos;
+    private final int top;
+    private final boolean comprimir;
+    private final boolean binario;
+    private final boolean columnar;
+    private final boolean consolidar;
+    private final Metricas metricas;
+    private final Path dirMetricas;
+
+    private Catalogo<Producto> productos;
+    private Catalogo<Vendedor> vendedores;
+    private Main.LectorVentas lector;
+    private Resultados trabajo;
+
+    private final Map<String, ParcialVentas> parciales = new HashMap<>(); // archivo -> aporte
+    private final Set<String> sucios = new LinkedHashSet<>();
+    private boolean recargarCatalogos;
+    private boolean reprocesarTodo;
+
+    VigilanciaVentas(String motor, int esperaMs, int top, boolean comprimir, boolean binario, boolean columnar,
+                     boolean consolidar, Metricas metricas, Path dirMetricas) {
+        if (esperaMs < 0) throw new IllegalArgumentException("--espera-ms no puede ser negativo: " + esperaMs);
+        this.motor = motor;
+        this.esperaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMs);
+        this.top = top;
+        this.comprimir = comprimir;
+        this.binario = binario;
+        this.columnar = columnar;
+        this.consolidar = consolidar;
+        this.metricas = metricas;
+        this.dirMetricas = dirMetricas;
+    }
+
+    /** Bucle principal; sólo termina por error o interrupción. */
+    void ejecutar() throws IOException, InterruptedException {
+        Files.createDirectories(Main.VENTAS_DIR);
+        try (WatchService ws = FileSystems.getDefault().newWatchService()) {
+            // Se registra ANTES del primer recorrido para no perder cambios intermedios
+            WatchKey claveVentas = Main.VENTAS_DIR.register(ws, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            Main.BASE_DIR.register(ws, ENTRY_CREATE, ENTRY_MODIFY);
+
+            recargarCatalogos = true;
+            aplicarCambios();
+            System.out.println("👀 Vigilando " + Main.VENTAS_DIR.toAbsolutePath() + " (Ctrl+C para terminar)");
+
+            long primerCambio = 0;
+            long ultimoCambio = 0;
+            while (true) {
+                WatchKey clave;
+                if (!hayPendientes()) {
+                    clave = ws.take();
+                } else {
+                    long limite = Math.min(ultimoCambio + esperaNanos,
+                            primerCambio + ESPERA_MAXIMA_FACTOR * esperaNanos);
+                    long restante = limite - System.nanoTime();
+                    clave = restante > 0 ? ws.poll(restante, TimeUnit.NANOSECONDS) : null;
+                    if (clave == null) {
+                        aplicarCambios();
+                        continue;
+                    }
+                }
+
+                boolean habiaPendientes = hayPendientes();
+                for (WatchEvent<?> ev : clave.pollEvents()) {
+                    clasificar(clave == claveVentas, ev);
+                }
+                if (!clave.reset()) {
+                    throw new IOException("Se dejó de poder vigilar " + clave.watchable());
+                }
+                if (hayPendientes()) {
+                    long ahora = System.nanoTime();
+                    if (!habiaPendientes) primerCambio = ahora;
+                    ultimoCambio = ahora;
+                }
+            }
+        }
+    }
+
+    private void clasificar(boolean enVentas, WatchEvent<?> ev) {
+        if (ev.kind() == OVERFLOW) {
+            reprocesarTodo = true;
+            return;
+        }
+        String nombre = ev.context().toString();
+        if (enVentas) {
+            if (nombre.endsWith(".csv") || nombre.endsWith(".csv.gz")) sucios.add(nombre);
+        } else if (nombre.equals(Main.PRODUCTOS_FILE.getFileName().toString())
+                || nombre.equals(Main.VENDEDORES_FILE.getFileName().toString())) {
+            recargarCatalogos = true;
+        }
+    }
+
+    private boolean hayPendientes() {
+        return recargarCatalogos || reprocesarTodo || !sucios.isEmpty();
+    }
+
+    private void aplicarCambios() throws IOException {
+        long t0 = System.nanoTime();
+        int procesados;
+
+        if (recargarCatalogos) {
+            long tc = System.nanoTime();
+            try {
+                InstantaneaCatalogos c = InstantaneaCatalogos.cargar(
+                        Main.PRODUCTOS_FILE, Main.VENDEDORES_FILE, Main.INSTANTANEA_FILE, columnar);
+                productos = c.productos;
+                vendedores = c.vendedores;
+            } catch (IOException ex) {
+                // p. ej. el catálogo se está reescribiendo: se reintenta con el siguiente evento
+                Bitacora.warn("No se pudieron recargar los catálogos: " + ex.getMessage());
+                if (productos == null) throw ex;
+            }
+            lector = Main.instrumentar(Main.crearLector(motor, productos, vendedores), metricas);
+            trabajo = new Resultados(productos, vendedores, true);
+            reprocesarTodo = true;
+            metricas.fase("catalogos", System.nanoTime() - tc);
+        }
+
+        long tv = System.nanoTime();
+        if (reprocesarTodo || consolidar) {
+            // Con --consolidar se vuelve a listar en cada ronda: si se borra un archivo que tenía un
+            // duplicado omitido, el duplicado pasa a ser el vigente y hay que leerlo aunque no haya
+            // tenido eventos.
+            if (reprocesarTodo) parciales.clear();
+            List<Path> archivos = Main.listarArchivosVenta(Main.VENTAS_DIR, consolidar);
+            Set<String> vigentes = new HashSet<>();
+            for (Path archivo : archivos) vigentes.add(archivo.getFileName().toString());
+            parciales.keySet().retainAll(vigentes); // borrados y duplicados
+            procesados = 0;
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                if (sucios.contains(nombre) || !parciales.containsKey(nombre)) {
+                    procesarArchivo(archivo);
+                    procesados++;
+                }
+            }
+        } else {
+            for (String nombre : sucios) procesarArchivo(Main.VENTAS_DIR.resolve(nombre));
+            procesados = sucios.size();
+        }
+        recargarCatalogos = false;
+        reprocesarTodo = false;
+        sucios.clear();
+
+        Resultados res = new Resultados(productos, vendedores);
+        for (ParcialVentas p : parciales.values()) res.sumar(p);
+        metricas.fase("ventas", System.nanoTime() - tv);
+
+        long tr = System.nanoTime();
+        Main.escribirReportes(res, top, comprimir, binario);
+        metricas.fase("reportes", System.nanoTime() - tr);
+        try {
+            Main.exportarMetricas(metricas, dirMetricas);
+        } catch (IOException ex) {
+            Bitacora.warn("No se pudieron exportar las métricas: " + ex.getMessage());
+        }
+
+        long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        Bitacora.info("Reportes actualizados: " + procesados + " archivo(s) procesado(s), "
+                + parciales.size() + " vigente(s), " + ms + " ms.");
+    }
+
+    private void procesarArchivo(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        if (!Files.isRegularFile(archivo)) {
+            parciales.remove(nombre);
+            return;
+        }
+        try {
+            trabajo.reiniciar();
+            lector.procesar(archivo, trabajo);
+            parciales.put(nombre, trabajo.aParcial());
+        } catch (IOException ex) {
+            // Archivo a medio escribir o borrado mientras se leía: llegará otro evento
+            Bitacora.warn("No se pudo procesar " + nombre + ": " + ex.getMessage());
+            parciales.remove(nombre);
+        }
+    }
+}
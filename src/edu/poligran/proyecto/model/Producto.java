@@ -12,6 +12,9 @@ public class Producto {
     private final String id;
     private final String nombre;
     private final BigDecimal precioUnitario;
+    private final long precioCentavos; // SIN_CENTAVOS si el precio no es exacto en centavos o no cabe en long
+
+    private static final long SIN_CENTAVOS = Long.MIN_VALUE;
 
     public Producto(String id, String nombre, BigDecimal precioUnitario) {
         this.id = Objects.requireNonNull(id, "id no puede ser null");
@@ -20,12 +23,35 @@ public class Producto {
         if (precioUnitario.signum() < 0) {
             throw new IllegalArgumentException("El precio no puede ser negativo");
         }
+        this.precioCentavos = centavosExactos(precioUnitario);
     }
 
     public String getId() { return id; }
     public String getNombre() { return nombre; }
     public BigDecimal getPrecioUnitario() { return precioUnitario; }
 
+    /** true si el precio se puede representar exactamente como centavos en un long. */
+    public boolean tienePrecioEnCentavos() { return precioCentavos != SIN_CENTAVOS; }
+
+    /**
+     * Precio en centavos (punto fijo, escala 2). Lanza ArithmeticException si el precio
+     * tiene más de 2 decimales significativos o no cabe en un long.
+     */
+    public long getPrecioCentavos() {
+        if (precioCentavos == SIN_CENTAVOS) {
+            throw new ArithmeticException("Precio de " + id + " no representable en centavos: " + precioUnitario);
+        }
+        return precioCentavos;
+    }
+
+    private static long centavosExactos(BigDecimal precio) {
+        try {
+            return precio.movePointRight(2).longValueExact();
+        } catch (ArithmeticException ae) {
+            return SIN_CENTAVOS;
+        }
+    }
+
     /** Línea CSV para productos.csv */
     @Override
     public String toString() {